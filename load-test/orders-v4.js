@@ -0,0 +1,47 @@
+/**
+ * /api/v4/orders 부하 테스트 (k6) - 플랫폼 스레드 vs 가상 스레드 처리량 비교
+ *
+ * 1. 플랫폼 스레드(기본, Tomcat 요청 스레드 200개)
+ *    ./gradlew bootRun
+ *    k6 run -e VUS=1000 load-test/orders-v4.js
+ * 2. 가상 스레드 (JDK 21)
+ *    ./gradlew bootRun --args='--jpashop.virtual-threads.enabled=true'
+ *    k6 run -e VUS=1000 load-test/orders-v4.js
+ *
+ * 두 결과의 http_reqs(초당 요청 수), http_req_duration p95/p99, 에러율을 비교
+ * - 동시 요청이 요청 스레드 수보다 많을때 차이가 남 (VUS를 스레드 수 이상으로)
+ * - 가상 스레드 모드의 상한은 커넥션 수 -> /actuator/metrics/jdbc.connections.limiter.waiting 이 계속 쌓이면 커넥션 풀이 병목
+ * - 같은 데이터로 비교할것 (POST /api/v1/orders/bulk 로 주문을 넉넉히 넣어둔 뒤)
+ */
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8078';
+const VUS = parseInt(__ENV.VUS || '500');
+
+export const options = {
+    scenarios: {
+        orders: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },  // 워밍업 (JIT, 2차캐시)
+                { duration: __ENV.DURATION || '2m', target: VUS },
+                { duration: '10s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(95)<1000'],
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+};
+
+export default function () {
+    const res = http.get(`${BASE_URL}/api/v4/orders`, { tags: { name: '/api/v4/orders' } });
+    check(res, {
+        'status 200': (r) => r.status === 200,
+    });
+}
@@ -0,0 +1,132 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.benchmark.BenchmarkContext;
+import jpabook.jpashop.benchmark.SqlCounter;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderFetchProfile;
+import jpabook.jpashop.repository.OrderRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 조회 API V1~V6, simple-orders V1~V4 (조회 + 지연로딩 + DTO 변환, JSON 직렬화 제외)
+ * - OrderDto가 package-private 이라서 api 패키지에 둠
+ *
+ * 실행: ./gradlew jmh  (결과는 build/results/jmh/results.json, gc 프로파일러로 할당량(gc.alloc.rate.norm) 포함)
+ *       특정 벤치마크만: ./gradlew jmh -PjmhIncludes=OrderApiBenchmark.orderV3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderApiBenchmark {
+    @Param({"100", "1000"})
+    public int orders;
+
+    @Param({"2", "5"})
+    public int itemsPerOrder;
+
+    @Param({"20"})
+    public int items;
+
+    @Param({"100"})
+    public int pageSize;
+
+    BenchmarkContext context;
+    OrderApiController orderApi;
+    OrderSimpleApiController simpleOrderApi;
+    List<Order> loadedOrders; //DTO 변환만 측정할때 사용 (연관관계까지 모두 초기화된 준영속 엔티티)
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(orders, itemsPerOrder, items);
+        orderApi = context.getBean(OrderApiController.class);
+        simpleOrderApi = context.getBean(OrderSimpleApiController.class);
+        loadedOrders = context.query(new SqlCounter(), () -> context.getBean(OrderRepository.class).findAll(OrderFetchProfile.WITH_ITEMS));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> ordersV1(SqlCounter counter) {
+        return context.query(counter, orderApi::ordersV1);
+    }
+
+    @Benchmark
+    public Object ordersV2(SqlCounter counter) {
+        return context.query(counter, orderApi::ordersV2);
+    }
+
+    @Benchmark
+    public Object orderV3(SqlCounter counter) {
+        return context.query(counter, orderApi::orderV3);
+    }
+
+    @Benchmark
+    public Object orderV3_page(SqlCounter counter) {
+        return context.query(counter, () -> orderApi.orderV3_page(0, pageSize));
+    }
+
+    @Benchmark
+    public Object orderV3_cursor(SqlCounter counter) {
+        return context.query(counter, () -> orderApi.orderV3_cursor(null, null, "id", pageSize));
+    }
+
+    @Benchmark
+    public Object orderV4(SqlCounter counter) {
+        return context.query(counter, orderApi::orderV4);
+    }
+
+    @Benchmark
+    public Object orderV4_1(SqlCounter counter) {
+        return context.query(counter, orderApi::orderV4_1);
+    }
+
+    @Benchmark
+    public Object orderV5(SqlCounter counter) {
+        return context.query(counter, orderApi::orderV5);
+    }
+
+    @Benchmark
+    public Object orderV6(SqlCounter counter) {
+        return context.query(counter, () -> orderApi.orderV6(0, pageSize));
+    }
+
+    @Benchmark
+    public Object simpleOrdersV1(SqlCounter counter) {
+        return context.query(counter, simpleOrderApi::orderV1);
+    }
+
+    @Benchmark
+    public Object simpleOrdersV2(SqlCounter counter) {
+        return context.query(counter, simpleOrderApi::orderV2);
+    }
+
+    @Benchmark
+    public Object simpleOrdersV3(SqlCounter counter) {
+        return context.query(counter, simpleOrderApi::OrderV3);
+    }
+
+    @Benchmark
+    public Object simpleOrdersV4(SqlCounter counter) {
+        return context.query(counter, simpleOrderApi::OrderV4);
+    }
+
+    /**
+     * 엔티티 -> OrderDto 변환만 (SQL 없음)
+     */
+    @Benchmark
+    public Object orderDtoMapping() {
+        return loadedOrders.stream()
+                .map(OrderApiController.OrderDto::new)
+                .collect(Collectors.toList());
+    }
+}
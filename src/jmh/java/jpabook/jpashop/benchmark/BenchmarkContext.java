@@ -0,0 +1,128 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.BulkOrderDto;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 벤치마크용 스프링 컨텍스트 (웹서버X, H2 메모리 DB) + 데이터 적재
+ * - SQL 로그, p6spy는 끄고 SQL 수를 세기 위해 hibernate 통계만 켬
+ * - 조회는 읽기 전용 트랜잭션 안에서 실행 (OSIV로 요청 끝까지 지연로딩이 되는 상황과 같게)
+ */
+public class BenchmarkContext implements AutoCloseable {
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private final ConfigurableApplicationContext context;
+    private final Statistics statistics;
+    private final TransactionTemplate readOnly;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+        this.statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        this.readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * @param orders        주문 수
+     * @param itemsPerOrder 주문당 주문상품 수 (items 보다 클 수 없음)
+     * @param items         상품 수
+     */
+    public static BenchmarkContext start(int orders, int itemsPerOrder, int items) {
+        if (itemsPerOrder > items) {
+            throw new IllegalArgumentException("itemsPerOrder는 items보다 클 수 없습니다.");
+        }
+        ConfigurableApplicationContext context = SpringApplication.run(JpashopApplication.class,
+                "--spring.main.web-application-type=none",
+                "--spring.main.banner-mode=off",
+                "--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.database=h2",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--decorator.datasource.enabled=false",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn");
+        BenchmarkContext benchmarkContext = new BenchmarkContext(context);
+        benchmarkContext.seed(orders, itemsPerOrder, items);
+        return benchmarkContext;
+    }
+
+    /**
+     * 회원 orders/10명, 상품 items개, 주문 orders건 (주문상품 itemsPerOrder개씩)
+     */
+    private void seed(int orders, int itemsPerOrder, int items) {
+        MemberService memberService = context.getBean(MemberService.class);
+        ItemService itemService = context.getBean(ItemService.class);
+        OrderService orderService = context.getBean(OrderService.class);
+
+        List<Long> memberIds = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, orders / 10); i++) {
+            Member member = new Member();
+            member.setName("bench-member-" + i);
+            member.setAddress(new Address("서울", "강남", String.valueOf(i)));
+            memberIds.add(memberService.join(member));
+        }
+
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            Book book = new Book();
+            book.setName("bench-book-" + i);
+            book.setPrice(1000 * (i + 1));
+            book.setStockQuantity(orders * itemsPerOrder);
+            itemService.saveItem(book);
+            itemIds.add(book.getId());
+        }
+
+        List<BulkOrderDto> batch = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            List<BulkOrderDto.OrderLine> lines = new ArrayList<>();
+            for (int j = 0; j < itemsPerOrder; j++) {
+                lines.add(new BulkOrderDto.OrderLine(itemIds.get((i + j) % items), 1));
+            }
+            batch.add(new BulkOrderDto(memberIds.get(i % memberIds.size()), lines));
+            if (batch.size() == SEED_BATCH_SIZE || i == orders - 1) {
+                orderService.bulkOrder(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        statistics.clear();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 읽기 전용 트랜잭션에서 실행하고 실행된 SQL 수를 counter에 더함
+     */
+    public <T> T query(SqlCounter counter, Supplier<T> query) {
+        long before = statistics.getPrepareStatementCount();
+        T result = readOnly.execute(status -> query.get());
+        counter.statements += statistics.getPrepareStatementCount() - before;
+        return result;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
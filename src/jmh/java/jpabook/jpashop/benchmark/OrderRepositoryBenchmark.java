@@ -0,0 +1,109 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.OrderFetchProfile;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 조회 쿼리만 측정 (엔티티 조회는 지연로딩을 건드리지 않음 -> DTO 변환까지는 OrderApiBenchmark)
+ * - offset/keyset 페이징은 중간 페이지(orders/2)를 조회해서 비교
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderRepositoryBenchmark {
+    @Param({"100", "1000"})
+    public int orders;
+
+    @Param({"2", "5"})
+    public int itemsPerOrder;
+
+    @Param({"20"})
+    public int items;
+
+    @Param({"100"})
+    public int pageSize;
+
+    BenchmarkContext context;
+    OrderRepository orderRepository;
+    OrderQueryRepository orderQueryRepository;
+    int middleOffset;
+    Long middleOrderId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(orders, itemsPerOrder, items);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        middleOffset = orders / 2;
+        middleOrderId = context.query(new SqlCounter(),
+                () -> orderRepository.findAll(OrderFetchProfile.SUMMARY, middleOffset, 1).get(0).getId() - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Order> findAllByString(SqlCounter counter) {
+        return context.query(counter, () -> orderRepository.findAllByString(new OrderSearch()));
+    }
+
+    @Benchmark
+    public List<Order> findAll_summary(SqlCounter counter) {
+        return context.query(counter, () -> orderRepository.findAll(OrderFetchProfile.SUMMARY));
+    }
+
+    @Benchmark
+    public List<Order> findAll_withItems(SqlCounter counter) {
+        return context.query(counter, () -> orderRepository.findAll(OrderFetchProfile.WITH_ITEMS));
+    }
+
+    @Benchmark
+    public List<Order> findAll_summary_offsetPage(SqlCounter counter) {
+        return context.query(counter, () -> orderRepository.findAll(OrderFetchProfile.SUMMARY, middleOffset, pageSize));
+    }
+
+    @Benchmark
+    public List<Order> findAll_summary_keysetPage(SqlCounter counter) {
+        return context.query(counter, () -> orderRepository.findAllAfter(middleOrderId, pageSize, OrderFetchProfile.SUMMARY));
+    }
+
+    @Benchmark
+    public List<OrderSimpleQueryDto> findOrderDtos(SqlCounter counter) {
+        return context.query(counter, () -> orderRepository.findOrderDtos());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> findOrderQueryDtos(SqlCounter counter) {
+        return context.query(counter, () -> orderQueryRepository.findOrderQueryDtos());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> findAllByDto_optimization(SqlCounter counter) {
+        return context.query(counter, () -> orderQueryRepository.findAllByDto_optimization());
+    }
+
+    @Benchmark
+    public List<OrderFlatDto> findAllByDto_flat(SqlCounter counter) {
+        return context.query(counter, () -> orderQueryRepository.findAllByDto_flat());
+    }
+
+    @Benchmark
+    public List<OrderFlatDto> findAllByDto_flatPage(SqlCounter counter) {
+        return context.query(counter, () -> orderQueryRepository.findAllByDto_flat(middleOffset, pageSize));
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.jpashop.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * V5 주문 조회 결과(List<OrderQueryDto>) 직렬화 포맷 비교 (조회 시간 제외)
+ * - json-plain : 스프링 기본 ObjectMapper (Hibernate5Module 없음 -> 모듈 비용 비교용)
+ * - json : 애플리케이션 ObjectMapper, json-gzip : json + gzip 압축 (server.compression)
+ * - smile, cbor : 바이너리 컨버터가 쓰는 ObjectMapper (JacksonConfig)
+ * - ObjectWriter는 타입을 지정해서 미리 만들어둠 (요청마다 루트 직렬화기를 찾지 않게)
+ * - 응답 크기는 Setup에서 출력 (payload bytes)
+ *
+ * 실행: ./gradlew jmh -PjmhIncludes=OrderSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderSerializationBenchmark {
+    @Param({"100", "1000"})
+    public int orders;
+
+    @Param({"5"})
+    public int itemsPerOrder;
+
+    @Param({"20"})
+    public int items;
+
+    @Param({"json-plain", "json", "json-gzip", "smile", "cbor"})
+    public String format;
+
+    List<OrderQueryDto> dtos;
+    ObjectWriter writer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        try (BenchmarkContext context = BenchmarkContext.start(orders, itemsPerOrder, items)) {
+            dtos = context.query(new SqlCounter(), () -> context.getBean(OrderQueryRepository.class).findAllByDto_optimization());
+            writer = objectMapper(context).writerFor(context.getBean(ObjectMapper.class).getTypeFactory()
+                    .constructCollectionType(List.class, OrderQueryDto.class));
+        }
+        System.out.printf("%n[%s] orders=%d payload bytes=%d%n", format, orders, serialize().length);
+    }
+
+    private ObjectMapper objectMapper(BenchmarkContext context) {
+        switch (format) {
+            case "json-plain":
+                return Jackson2ObjectMapperBuilder.json().build();
+            case "json":
+            case "json-gzip":
+                return context.getBean(ObjectMapper.class);
+            case "smile":
+                return context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            case "cbor":
+                return context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+            default:
+                throw new IllegalArgumentException("지원하지 않는 포맷입니다. format=" + format);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        if (!"json-gzip".equals(format)) {
+            return writer.writeValueAsBytes(dtos);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            writer.writeValue(gzip, dtos);
+        }
+        return out.toByteArray();
+    }
+}
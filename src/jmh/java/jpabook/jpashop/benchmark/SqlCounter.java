@@ -0,0 +1,22 @@
+package jpabook.jpashop.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 벤치마크 결과에 SQL 실행 수를 같이 출력 (hibernate 통계의 prepareStatement 수)
+ * 기본 점수와 같은 단위로 정규화되므로 thrpt 모드에서 statements / 기본 점수 = 호출 한번당 SQL 수
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class SqlCounter {
+    public long statements;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        statements = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryTree;
+import jpabook.jpashop.service.CategoryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 카테고리 트리 조회는 메모리 스냅샷(CategoryTree)에서 -> DB 조회X
+ */
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+    private final CategoryService categoryService;
+
+    @GetMapping("/api/v1/categories")
+    public List<CategoryNodeDto> categoriesV1() {
+        CategoryTree tree = categoryService.tree();
+        return tree.getRootIds().stream()
+                .map(id -> CategoryNodeDto.of(tree, id))
+                .collect(Collectors.toList());
+    }
+
+    @GetMapping("/api/v1/categories/{id}")
+    public CategoryDto categoryV1(@PathVariable("id") Long id) {
+        CategoryTree tree = categoryService.tree();
+        return new CategoryDto(id, tree.getName(id), tree.getAncestorIds(id), tree.getSubtreeIds(id));
+    }
+
+    /**
+     * 하위 카테고리까지 포함한 상품 목록 (쿼리 1번)
+     */
+    @GetMapping("/api/v1/categories/{id}/items")
+    public List<CategoryItemDto> categoryItemsV1(@PathVariable("id") Long id) {
+        return categoryService.findItemsInSubtree(id).stream()
+                .map(CategoryItemDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @PostMapping("/api/v1/categories")
+    public CreateCategoryResponse saveCategoryV1(@RequestBody @Valid CreateCategoryRequest request) {
+        Long id = categoryService.create(request.getName(), request.getParentId());
+        return new CreateCategoryResponse(id);
+    }
+
+    @PutMapping("/api/v1/categories/{id}/parent")
+    public void moveCategoryV1(@PathVariable("id") Long id, @RequestBody MoveCategoryRequest request) {
+        categoryService.move(id, request.getParentId());
+    }
+
+    @PostMapping("/api/v1/categories/{id}/items/{itemId}")
+    public void addCategoryItemV1(@PathVariable("id") Long id, @PathVariable("itemId") Long itemId) {
+        categoryService.addItem(id, itemId);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CategoryNodeDto {
+        private Long id;
+        private String name;
+        private List<CategoryNodeDto> children;
+
+        static CategoryNodeDto of(CategoryTree tree, Long id) {
+            List<CategoryNodeDto> children = tree.getChildIds(id).stream()
+                    .map(childId -> of(tree, childId))
+                    .collect(Collectors.toList());
+            return new CategoryNodeDto(id, tree.getName(id), children);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CategoryDto {
+        private Long id;
+        private String name;
+        private List<Long> ancestorIds;
+        private List<Long> subtreeIds;
+    }
+
+    @Data
+    static class CategoryItemDto {
+        private Long itemId;
+        private String name;
+        private int price;
+
+        public CategoryItemDto(Item item) {
+            itemId = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+        }
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        @NotEmpty
+        private String name;
+        private Long parentId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse {
+        private Long id;
+    }
+
+    @Data
+    static class MoveCategoryRequest {
+        private Long parentId;
+    }
+}
@@ -1,11 +1,13 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.CatalogVersion;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -15,6 +17,7 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MemberApiController {
     private final MemberService memberService;
+    private final CatalogVersion catalogVersion;
 
     @GetMapping("/api/v1/members")
     public List<Member> memberV1() {
@@ -28,8 +31,14 @@ public class MemberApiController {
          */
     }
 
+    /**
+     * 회원이 바뀌지 않았으면(If-None-Match) 목록 조회없이 304 (ETag는 집계 쿼리 한번)
+     */
     @GetMapping("/api/v2/members")
-    public Result memberV2() {
+    public Result memberV2(WebRequest request) {
+        if (request.checkNotModified(catalogVersion.getMembersEtag())) {
+            return null;
+        }
         List<Member> findMembers = memberService.findMembers();
 
         List<MemberDto> data = findMembers.stream()
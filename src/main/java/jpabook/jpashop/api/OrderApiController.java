@@ -4,20 +4,46 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderCursor;
+import jpabook.jpashop.repository.OrderFetchProfile;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryAssembler;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
+import jpabook.jpashop.service.BulkOrderDto;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderIntake;
+import jpabook.jpashop.service.OrderIntakeStatus;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.OrderSummary;
+import jpabook.jpashop.service.OrderSummaryProjection;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -25,7 +51,12 @@ import java.util.stream.Collectors;
 public class OrderApiController {
     private final OrderRepository orderRepository;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderService orderService;
+    private final OrderSummaryProjection orderSummaryProjection;
+    private final ObjectProvider<OrderIntake> orderIntake;
 
+    @Transactional(readOnly = true) //open-in-view가 꺼져있으므로 엔티티 지연로딩/DTO 변환은 트랜잭션 안에서
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
         List<Order> all = orderRepository.findAllByString(new OrderSearch());
@@ -42,6 +73,7 @@ public class OrderApiController {
     /**
      * DTO를 조회 (조회성능 낮음)
      */
+    @Transactional(readOnly = true)
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
         List<Order> orders = orderRepository.findAllByString(new OrderSearch());
@@ -54,10 +86,11 @@ public class OrderApiController {
     /**
      * 패치조인 적용 (Distinct)
      */
+    @Transactional(readOnly = true)
     @GetMapping("/api/v3/orders")
     public List<OrderDto> orderV3() {
         /* JPQL */
-        List<Order> orders= orderRepository.findAllWithItem();
+        List<Order> orders= orderRepository.findAll(OrderFetchProfile.WITH_ITEMS); //회원, 배송, 주문상품, 상품을 한번에 조인
 
         return orders.stream()
                 .map(o -> new OrderDto(o))
@@ -89,22 +122,77 @@ public class OrderApiController {
      *
      *   결론 : ToOne 관계는 페치조인(쿼리수 감소) + 컬렉션은 default_batch_fetch_size 사용
      */
+    @Transactional(readOnly = true)
     @GetMapping("/api/v3.1/orders")
     public List<OrderDto> orderV3_page(@RequestParam(value = "offset", defaultValue = "0") int offset,
                                        @RequestParam(value = "limit", defaultValue = "100") int limit)
     {
-        List<Order> orders= orderRepository.findAllWithMemberDelivery(offset, limit);    //ToOne관계인것들을 모두 fetch조인으로 가져옴
+        List<Order> orders= orderRepository.findAll(OrderFetchProfile.WITH_ITEMS, offset, limit);    //ToOne관계는 조인, 주문상품/상품은 batch fetch
 
         return orders.stream()
                 .map(o -> new OrderDto(o))
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 🔥키셋(커서) 페이징🔥
+     * - offset은 앞의 데이터를 전부 읽고 버리기때문에 뒷 페이지일수록 느려짐
+     * - 마지막으로 받은 주문 다음부터 인덱스로 바로 찾아감 => 몇번째 페이지든 속도가 일정
+     * - 첫 페이지: after, cursor 없이 호출 (sort=orderDate 이면 주문일시 순)
+     * - 다음 페이지: 응답의 next 토큰을 cursor로 전달 (after=주문ID로 직접 지정도 가능)
+     *   after는 주문ID 커서라서 sort=orderDate와 같이 쓰면 400 (정렬을 조용히 무시하지 않음)
+     * - ToOne 페치조인 + 컬렉션 batch_fetch_size는 v3.1과 동일
+     */
+    @Transactional(readOnly = true)
+    @GetMapping("/api/v3.2/orders")
+    public CursorResult<List<OrderDto>> orderV3_cursor(@RequestParam(value = "after", required = false) Long after,
+                                                       @RequestParam(value = "cursor", required = false) String cursor,
+                                                       @RequestParam(value = "sort", defaultValue = "id") String sort,
+                                                       @RequestParam(value = "limit", defaultValue = "100") int limit)
+    {
+        if (cursor == null && after != null && "orderDate".equals(sort)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "after는 sort=orderDate와 같이 쓸 수 없습니다. (cursor 사용)");
+        }
+        OrderCursor orderCursor = cursor != null ? decodeCursor(cursor)
+                : after != null ? OrderCursor.of(after) : null;
+        boolean byOrderDate = orderCursor != null ? orderCursor.isOrderDateCursor() : "orderDate".equals(sort);
+        int pageSize = Math.max(1, Math.min(limit, 1000)); //최대 1000건
+
+        //다음 페이지 존재여부를 알기위해 1건 더 조회
+        List<Order> orders = byOrderDate
+                ? orderRepository.findAllAfter(
+                        orderCursor == null ? null : orderCursor.getOrderDate(),
+                        orderCursor == null ? null : orderCursor.getOrderId(), pageSize + 1, OrderFetchProfile.WITH_ITEMS)
+                : orderRepository.findAllAfter(
+                        orderCursor == null ? null : orderCursor.getOrderId(), pageSize + 1, OrderFetchProfile.WITH_ITEMS);
+
+        String next = null;
+        if (orders.size() > pageSize) {
+            orders = orders.subList(0, pageSize);
+            Order last = orders.get(pageSize - 1);
+            next = (byOrderDate ? OrderCursor.of(last.getOrderDate(), last.getId()) : OrderCursor.of(last.getId())).encode();
+        }
+
+        List<OrderDto> data = orders.stream()
+                .map(o -> new OrderDto(o))
+                .collect(Collectors.toList());
+        return new CursorResult<>(data, next);
+    }
+
     @GetMapping("/api/v4/orders")
     public List<OrderQueryDto> orderV4() {
         return orderQueryRepository.findOrderQueryDtos();
     }
 
+    /**
+     * V4 + 주문별 주문상품 조회를 병렬로 (ParallelQueryExecutor)
+     * SQL 수는 V4와 같지만 응답시간은 조회시간의 합이 아니라 (주문 수 / 풀 크기)배
+     */
+    @GetMapping("/api/v4.1/orders")
+    public List<OrderQueryDto> orderV4_1() {
+        return orderQueryRepository.findOrderQueryDtos_parallel();
+    }
+
     @GetMapping("/api/v5/orders")
     public List<OrderQueryDto> orderV5() {
         return orderQueryRepository.findAllByDto_optimization();
@@ -116,16 +204,82 @@ public class OrderApiController {
      *
      * 단점
      * - 페이징 불가 (Order기준으로 해야하는데 OrderItems가 기준이됨)
-     * 🔥 API 스펙이 맞지 않음. V5와 같은 스펙으로 반환하기 위해서는 작업이 필요함..
-     * 🔥 이 작업이 복잡...
-     *
+     *   => 주문ID만 페이징하는 서브쿼리에 조인해서 주문 기준으로 페이징
+     * - API 스펙이 맞지 않음
+     *   => order_id 순으로 정렬된 row를 한번만 순회하면서 OrderQueryDto로 조립 (V5와 같은 스펙)
+     * - 애플리케이션에서 추가 작업이 크고, 중복데이터가 DB에서 넘어오기때문에 상황에따라 V5보다 느릴수도 있음
      */
     @GetMapping("/api/v6/orders")
-    public List<OrderFlatDto> orderV6() {
-        List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
-        // OrderFlatDto --> OrderQueryDto를 개발자가 직접 변환하기..
+    public List<OrderQueryDto> orderV6(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                       @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat(offset, limit);
+        return OrderQueryAssembler.assemble(flats);
+    }
 
-        return flats;
+    /**
+     * 전체 주문 내보내기 (NDJSON)
+     * - 결과를 List로 만들지 않고 DB 커서에서 읽는대로 바로 응답에 씀
+     * - StreamingResponseBody는 별도 스레드에서 실행되므로 트랜잭션은 OrderExportService에서 새로 시작함
+     */
+    @GetMapping("/api/orders/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(orderExportService::exportOrders);
+    }
+
+    /**
+     * 주문 집계 (주문상태별 주문 수, 주문금액, 주문수량) - memberId가 있으면 해당 회원만
+     * 주문/주문상품을 읽지 않고 메모리 집계에서 바로 조회 (OrderSummaryProjection)
+     */
+    @GetMapping("/api/v1/orders/summary")
+    public OrderSummaryResponse orderSummaryV1(@RequestParam(value = "memberId", required = false) Long memberId) {
+        Map<OrderStatus, OrderSummary> byStatus = memberId == null
+                ? orderSummaryProjection.summary()
+                : orderSummaryProjection.summaryOf(memberId);
+        return new OrderSummaryResponse(memberId, byStatus);
+    }
+
+    /**
+     * 대량 주문 - 주문 여러건(주문상품 여러개)을 한 트랜잭션으로 저장
+     */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResponse bulkOrderV1(@RequestBody @Valid BulkOrderRequest request) {
+        List<Long> orderIds = orderService.bulkOrder(request.getOrders());
+        return new BulkOrderResponse(orderIds.size(), orderIds);
+    }
+
+    /**
+     * 주문 접수 (jpashop.order-intake.enabled=true) - 재고만 차감하고 202, 저장 여부는 Location의 ticket으로 조회
+     */
+    @PostMapping("/api/v1/orders/intake")
+    public ResponseEntity<OrderIntakeStatus> intakeOrderV1(@RequestBody @Valid BulkOrderDto request) {
+        OrderIntakeStatus status = intake().submit(request);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/orders/intake/" + status.getTicket()))
+                .body(status);
+    }
+
+    @GetMapping("/api/v1/orders/intake/{ticket}")
+    public ResponseEntity<OrderIntakeStatus> intakeStatusV1(@PathVariable("ticket") String ticket) {
+        OrderIntakeStatus status = intake().getStatus(ticket);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+
+    private OrderCursor decodeCursor(String cursor) {
+        try {
+            return OrderCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e); //잘못된 커서는 500이 아니라 400
+        }
+    }
+
+    private OrderIntake intake() {
+        OrderIntake intake = orderIntake.getIfAvailable();
+        if (intake == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "주문 접수가 꺼져 있습니다. (jpashop.order-intake.enabled)");
+        }
+        return intake;
     }
 
     /**
@@ -138,6 +292,35 @@ public class OrderApiController {
      * 4. DTO조회 방식으로 안된다 -> NativeSQL or 스프링 JdbcTemplate
      */
 
+    @Data
+    @AllArgsConstructor
+    static class OrderSummaryResponse {
+        private Long memberId;
+        private Map<OrderStatus, OrderSummary> byStatus;
+    }
+
+    @Data
+    static class BulkOrderRequest {
+        @NotEmpty
+        @Size(max = 10000)
+        @Valid
+        private List<BulkOrderDto> orders;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkOrderResponse {
+        private int count;
+        private List<Long> orderIds;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CursorResult<T> {
+        private T data;
+        private String next;
+    }
+
     @Data
     static class OrderDto {
         private Long orderId;
@@ -3,11 +3,13 @@ package jpabook.jpashop.api;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderFetchProfile;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.OrderSimpleQueryDto;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -27,6 +29,7 @@ import static java.util.stream.Collectors.*;
 public class OrderSimpleApiController {
     private final OrderRepository orderRepository;
 
+    @Transactional(readOnly = true) //open-in-view가 꺼져있으므로 엔티티 지연로딩/DTO 변환은 트랜잭션 안에서
     @GetMapping("/api/v1/simple-orders")
     public List<Order> orderV1() {
         List<Order> all = orderRepository.findAllByString(new OrderSearch());
@@ -44,6 +47,7 @@ public class OrderSimpleApiController {
          */
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> orderV2() {
         List<Order> orders = orderRepository.findAllByString(new OrderSearch());
@@ -64,9 +68,10 @@ public class OrderSimpleApiController {
          */
     }
 
+    @Transactional(readOnly = true)
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDto> OrderV3() {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery();
+        List<Order> orders = orderRepository.findAll(OrderFetchProfile.SUMMARY);
         return orders.stream()
                 .map(SimpleOrderDto::new)
                 .collect(toList());
@@ -0,0 +1,56 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
+
+/**
+ * 하이버네이트 통계 메트릭 (hibernate.generate_statistics=true 일때)
+ * - 쿼리별 실행시간/느린 쿼리 : QueryTimingStatistics, 엔티티/컬렉션/캐시 영역별 : HibernateStatisticsMetrics
+ * - 쿼리 통계 목록은 /actuator/hibernate (HibernateStatisticsEndpoint)
+ * - SQL 로그(org.hibernate.SQL: debug)를 켜지 않아도 slow-query-threshold 이상 걸린 SQL은 org.hibernate.SQL_SLOW 로 남음
+ */
+@Configuration
+public class HibernateStatisticsConfig {
+    private final Duration slowQueryThreshold;
+    private final int maxQueryTags;
+
+    public HibernateStatisticsConfig(@Value("${jpashop.hibernate.slow-query-threshold:500ms}") Duration slowQueryThreshold,
+                                     @Value("${jpashop.hibernate.max-query-tags:200}") int maxQueryTags) {
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.maxQueryTags = maxQueryTags;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer queryTimingStatistics(ObjectProvider<MeterRegistry> meterRegistry) {
+        return properties -> {
+            properties.put("hibernate.stats.factory",
+                    (StatisticsFactory) sessionFactory -> new QueryTimingStatistics(sessionFactory, meterRegistry, slowQueryThreshold));
+            properties.put(AvailableSettings.LOG_SLOW_QUERY, slowQueryThreshold.toMillis());
+        };
+    }
+
+    @Bean
+    public MeterBinder hibernateStatisticsMetrics(EntityManagerFactory entityManagerFactory) {
+        return new HibernateStatisticsMetrics(entityManagerFactory.unwrap(SessionFactory.class).getStatistics());
+    }
+
+    /**
+     * 쿼리 문자열이 태그라서 종류가 계속 늘어나면(리터럴을 JPQL에 직접 넣는 경우 등) 메트릭이 끝없이 생김 -> 상한
+     */
+    @Bean
+    public MeterFilter hibernateQueryTagLimit() {
+        return MeterFilter.maximumAllowableTags("hibernate.query", "query", maxQueryTags, MeterFilter.deny());
+    }
+}
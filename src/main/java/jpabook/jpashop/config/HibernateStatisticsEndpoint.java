@@ -0,0 +1,82 @@
+package jpabook.jpashop.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * /actuator/hibernate : 쿼리별 실행 통계 (총 실행시간 순)
+ * - GET ?sort=max 로 최대 실행시간 순, ?limit=N
+ * - DELETE 로 통계 초기화 (부하 테스트 전후 비교)
+ */
+@Component
+@Endpoint(id = "hibernate")
+public class HibernateStatisticsEndpoint {
+    private final Statistics statistics;
+
+    public HibernateStatisticsEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, Object> statistics(@Nullable String sort, @Nullable Integer limit) {
+        Comparator<QueryDescriptor> order = "max".equals(sort)
+                ? Comparator.comparingLong(QueryDescriptor::getMaxTime)
+                : Comparator.comparingLong(QueryDescriptor::getTotalTime);
+        List<QueryDescriptor> queries = Arrays.stream(statistics.getQueries())
+                .map(query -> new QueryDescriptor(query, statistics.getQueryStatistics(query)))
+                .sorted(order.reversed())
+                .limit(limit != null ? limit : 20)
+                .collect(toList());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("since", statistics.getStartTime());
+        result.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        result.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        result.put("slowestQueryTime", statistics.getQueryExecutionMaxTime());
+        if (statistics instanceof QueryTimingStatistics) {
+            result.put("slowQueryThreshold", ((QueryTimingStatistics) statistics).getSlowQueryThresholdMillis());
+        }
+        result.put("queries", queries);
+        return result;
+    }
+
+    @DeleteOperation
+    public void clear() {
+        statistics.clear();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class QueryDescriptor {
+        private String query;
+        private long count;
+        private long rows;
+        private long avgTime;
+        private long maxTime;
+        private long totalTime;
+        private long cacheHits;
+
+        QueryDescriptor(String query, QueryStatistics stats) {
+            this(query, stats.getExecutionCount(), stats.getExecutionRowCount(), stats.getExecutionAvgTime(),
+                    stats.getExecutionMaxTime(), stats.getExecutionTotalTime(), stats.getCacheHitCount());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.internal.util.StringHelper;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 스프링 부트 기본 hibernate.* 메트릭(전체 합계)에 없는 엔티티/컬렉션/캐시 영역별 통계
+ * - hibernate.entity.{loads,fetches,inserts,updates,deletes}{entity}
+ *   (fetches = 지연로딩/배치 페치로 따로 조회한 횟수 -> N+1이 생기는 엔티티 확인)
+ * - hibernate.collection.{loads,fetches}{role}
+ * - hibernate.second.level.cache.hit.ratio{region}, hibernate.query.cache.hit.ratio
+ */
+public class HibernateStatisticsMetrics implements MeterBinder {
+    private final Statistics statistics;
+
+    public HibernateStatisticsMetrics(Statistics statistics) {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (String entityName : statistics.getEntityNames()) {
+            String entity = StringHelper.unqualify(entityName);
+            entityCounter(registry, "loads", "엔티티 로딩 수", entity, entityName, EntityStatistics::getLoadCount);
+            entityCounter(registry, "fetches", "엔티티를 따로 조회(지연로딩 등)한 수", entity, entityName, EntityStatistics::getFetchCount);
+            entityCounter(registry, "inserts", "엔티티 insert 수", entity, entityName, EntityStatistics::getInsertCount);
+            entityCounter(registry, "updates", "엔티티 update 수", entity, entityName, EntityStatistics::getUpdateCount);
+            entityCounter(registry, "deletes", "엔티티 delete 수", entity, entityName, EntityStatistics::getDeleteCount);
+        }
+
+        for (String roleName : statistics.getCollectionRoleNames()) {
+            String role = StringHelper.unqualify(StringHelper.qualifier(roleName)) + "." + StringHelper.unqualify(roleName);
+            FunctionCounter.builder("hibernate.collection.loads", statistics,
+                            stats -> stats.getCollectionStatistics(roleName).getLoadCount())
+                    .description("컬렉션 로딩 수")
+                    .tag("role", role)
+                    .register(registry);
+            FunctionCounter.builder("hibernate.collection.fetches", statistics,
+                            stats -> stats.getCollectionStatistics(roleName).getFetchCount())
+                    .description("컬렉션을 따로 조회(지연로딩 등)한 수")
+                    .tag("role", role)
+                    .register(registry);
+        }
+
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            if (statistics.getCacheRegionStatistics(regionName) == null) {
+                continue;
+            }
+            Gauge.builder("hibernate.second.level.cache.hit.ratio", statistics, stats -> {
+                        CacheRegionStatistics region = stats.getCacheRegionStatistics(regionName);
+                        return hitRatio(region.getHitCount(), region.getMissCount());
+                    })
+                    .description("2차 캐시 영역별 적중률")
+                    .tag("region", regionName)
+                    .register(registry);
+        }
+        Gauge.builder("hibernate.query.cache.hit.ratio", statistics,
+                        stats -> hitRatio(stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount()))
+                .description("쿼리 캐시 적중률")
+                .register(registry);
+    }
+
+    /**
+     * 통계 객체를 잡아두지 않고 매번 이름으로 찾음 (Statistics.clear()하면 새 객체로 바뀜)
+     */
+    private void entityCounter(MeterRegistry registry, String name, String description, String entity,
+                               String entityName, ToDoubleFunction<EntityStatistics> count) {
+        FunctionCounter.builder("hibernate.entity." + name, statistics,
+                        stats -> count.applyAsDouble(stats.getEntityStatistics(entityName)))
+                .description(description)
+                .tag("entity", entity)
+                .register(registry);
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? Double.NaN : (double) hits / total;
+    }
+}
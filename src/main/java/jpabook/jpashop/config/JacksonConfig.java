@@ -0,0 +1,38 @@
+package jpabook.jpashop.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * API 응답 직렬화
+ * - Accept 헤더(또는 ?format=smile|cbor)로 JSON 대신 바이너리 포맷 응답 (내부 호출용)
+ *   Smile : application/x-jackson-smile, CBOR : application/cbor
+ * - 바이너리 컨버터도 스프링 부트의 Jackson2ObjectMapperBuilder로 만들어서 JSON과 같은 모듈/설정을 씀
+ *   (스프링 기본 컨버터를 쓰면 Hibernate5Module이 없어서 엔티티 API는 실패하고, 날짜는 배열로 나감)
+ * - JSON gzip 압축은 server.compression (application.yml)
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * 같은 문자열 값(회원명, 주문상태, 주소)이 반복되면 앞에 나온 값을 참조하도록 (필드명은 기본으로 공유함)
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
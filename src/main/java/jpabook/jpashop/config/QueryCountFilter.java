@@ -0,0 +1,87 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 SQL 실행 수, JDBC 시간, 읽은 row 수를 집계해서 메트릭으로 기록 (/actuator/metrics/jdbc.request.*)
+ * - 같은 모양의 SQL이 n-plus-one-threshold번 이상 실행되면 N+1 의심으로 경고 로그 + jdbc.request.n_plus_one 카운터
+ * - API 응답 헤더는 QueryCountHeaderAdvice에서 추가 (화면 렌더링중에 실행된 SQL은 메트릭에만 포함)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.query-count.enabled", matchIfMissing = true)
+public class QueryCountFilter extends OncePerRequestFilter {
+    private final MeterRegistry meterRegistry;
+    private final int nPlusOneThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${jpashop.query-count.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats parent = QueryCounter.current();
+        QueryStats stats = QueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.restore(parent);
+            if (parent != null) {
+                parent.addAll(stats);
+            }
+            record(request, stats);
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String method = request.getMethod();
+
+        DistributionSummary.builder("jdbc.request.statements")
+                .description("요청당 SQL 실행 수")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(stats.getStatementCount());
+        Timer.builder("jdbc.request.time")
+                .description("요청당 JDBC 실행 시간 합계")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(stats.getTimeNanos(), TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("jdbc.request.rows")
+                .description("요청당 읽은 row 수")
+                .tags("uri", uri, "method", method)
+                .register(meterRegistry)
+                .record(stats.getRowCount());
+
+        Map<String, Integer> repeated = stats.getRepeatedStatements(nPlusOneThreshold);
+        if (!repeated.isEmpty()) {
+            Counter.builder("jdbc.request.n_plus_one")
+                    .description("같은 모양의 SQL이 반복 실행된 요청 수 (N+1 의심)")
+                    .tags("uri", uri, "method", method)
+                    .register(meterRegistry)
+                    .increment();
+            repeated.forEach((sql, count) -> log.warn("N+1 의심 {} {} : {}회 실행 - {}", method, uri, count, sql));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * API(@ResponseBody) 응답을 쓰기 직전에 지금까지의 SQL 통계를 헤더로 추가
+ * X-Query-Count, X-Query-Time-Ms, X-Query-Rows, X-Query-N-Plus-One(반복 실행된 SQL 모양 수)
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "jpashop.query-count.enabled", matchIfMissing = true)
+public class QueryCountHeaderAdvice implements ResponseBodyAdvice<Object> {
+    private final int nPlusOneThreshold;
+
+    public QueryCountHeaderAdvice(@Value("${jpashop.query-count.n-plus-one-threshold:5}") int nPlusOneThreshold) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        QueryStats stats = QueryCounter.current();
+        if (stats != null) {
+            HttpHeaders headers = response.getHeaders();
+            headers.set("X-Query-Count", String.valueOf(stats.getStatementCount()));
+            headers.set("X-Query-Time-Ms", String.format("%.3f", stats.getTimeNanos() / 1_000_000.0));
+            headers.set("X-Query-Rows", String.valueOf(stats.getRowCount()));
+            headers.set("X-Query-N-Plus-One", String.valueOf(stats.getRepeatedStatements(nPlusOneThreshold).size()));
+        }
+        return body;
+    }
+}
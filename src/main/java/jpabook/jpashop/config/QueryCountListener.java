@@ -0,0 +1,32 @@
+package jpabook.jpashop.config;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy JDBC 이벤트 -> 현재 요청의 QueryStats에 기록
+ * (p6spy-spring-boot-starter가 JdbcEventListener 빈을 자동으로 등록함)
+ */
+@Component
+public class QueryCountListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryStats stats = QueryCounter.current();
+        if (stats != null) {
+            stats.recordStatement(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        QueryStats stats = QueryCounter.current();
+        if (stats != null && hasNext) {
+            stats.recordRow();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.config;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 현재 스레드(요청)의 SQL 통계
+ * - QueryCountFilter가 요청마다 시작하고, QueryCountListener(p6spy)가 기록함
+ * - 다른 스레드에서 실행되는 작업은 propagate로 감싸면 호출한 쪽 통계에 같이 기록됨
+ * - 테스트에서는 start() 후에 코드를 실행하고 current()로 확인
+ */
+public final class QueryCounter {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static QueryStats start() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * @return 시작하지 않았으면 null
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    static void restore(QueryStats stats) {
+        if (stats == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stats);
+        }
+    }
+
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        QueryStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> {
+            QueryStats previous = CURRENT.get();
+            CURRENT.set(stats);
+            try {
+                return task.call();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,70 @@
+package jpabook.jpashop.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 요청 하나에서 실행된 SQL 통계 (실행 수, JDBC 실행시간, 읽은 row 수, SQL 모양별 실행 수)
+ * 병렬 조회 스레드에서도 같이 기록되므로 스레드에 안전하게 누적
+ */
+public class QueryStats {
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder timeNanos = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final Map<String, AtomicInteger> shapes = new ConcurrentHashMap<>();
+
+    public void recordStatement(String sql, long elapsedNanos) {
+        statements.increment();
+        timeNanos.add(elapsedNanos);
+        if (sql != null) {
+            shapes.computeIfAbsent(normalize(sql), key -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    public void recordRow() {
+        rows.increment();
+    }
+
+    public void addAll(QueryStats other) {
+        statements.add(other.statements.sum());
+        timeNanos.add(other.timeNanos.sum());
+        rows.add(other.rows.sum());
+        other.shapes.forEach((shape, count) ->
+                shapes.computeIfAbsent(shape, key -> new AtomicInteger()).addAndGet(count.get()));
+    }
+
+    public long getStatementCount() {
+        return statements.sum();
+    }
+
+    public long getTimeNanos() {
+        return timeNanos.sum();
+    }
+
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    /**
+     * 같은 모양(파라미터만 다른) SQL이 threshold번 이상 실행된 것 => N+1 의심
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        shapes.forEach((shape, count) -> {
+            if (count.get() >= threshold) {
+                repeated.put(shape, count.get());
+            }
+        });
+        return repeated;
+    }
+
+    /**
+     * PreparedStatement는 이미 파라미터가 ?로 되어있으므로 공백만 정리
+     */
+    private static String normalize(String sql) {
+        return sql.trim().replaceAll("\\s+", " ");
+    }
+}
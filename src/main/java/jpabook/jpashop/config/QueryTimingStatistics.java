@@ -0,0 +1,79 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 하이버네이트 통계 + JPQL(네이티브 쿼리 포함)별 실행시간 메트릭, 느린 쿼리 로그
+ * - hibernate.query.execution{query} : 쿼리 문자열별 실행 시간 (max로 핫 쿼리 확인)
+ * - hibernate.query.slow{query} : slowQueryThreshold 이상 걸린 실행 수 + 경고 로그
+ * - 하이버네이트가 SessionFactory를 만들때 생성하므로 MeterRegistry는 처음 쿼리가 실행될때 가져옴 (빈 생성 순환 방지)
+ * - em.find, 배치 페치 같은 쿼리 API 밖의 SQL은 org.hibernate.SQL_SLOW 로그로 확인 (HibernateStatisticsConfig)
+ * - 주의: 하이버네이트 내부 구현(org.hibernate.stat.internal.StatisticsImpl)을 상속 -> 버전 업그레이드때 시그니처가 바뀔수 있음
+ */
+@Slf4j
+public class QueryTimingStatistics extends StatisticsImpl {
+    private static final long serialVersionUID = 1L; //StatisticsImpl이 Serializable
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final long slowQueryThresholdMillis;
+    private volatile MeterRegistry meterRegistry;
+
+    public QueryTimingStatistics(SessionFactoryImplementor sessionFactory,
+                                 ObjectProvider<MeterRegistry> meterRegistryProvider,
+                                 Duration slowQueryThreshold) {
+        super(sessionFactory);
+        this.meterRegistryProvider = meterRegistryProvider;
+        this.slowQueryThresholdMillis = slowQueryThreshold.toMillis();
+    }
+
+    @Override
+    public void queryExecuted(String hql, int rows, long time) {
+        super.queryExecuted(hql, rows, time);
+        if (hql == null) {
+            return;
+        }
+        boolean slow = time >= slowQueryThresholdMillis;
+        if (slow) {
+            log.warn("느린 쿼리 {}ms, {}건 : {}", time, rows, hql);
+        }
+
+        MeterRegistry registry = meterRegistry();
+        if (registry == null) {
+            return;
+        }
+        Timer.builder("hibernate.query.execution")
+                .description("JPQL/네이티브 쿼리별 실행 시간")
+                .tag("query", hql)
+                .register(registry)
+                .record(time, TimeUnit.MILLISECONDS);
+        if (slow) {
+            Counter.builder("hibernate.query.slow")
+                    .description("느린 쿼리 실행 수 (jpashop.hibernate.slow-query-threshold 이상)")
+                    .tag("query", hql)
+                    .register(registry)
+                    .increment();
+        }
+    }
+
+    public long getSlowQueryThresholdMillis() {
+        return slowQueryThresholdMillis;
+    }
+
+    private MeterRegistry meterRegistry() {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            registry = meterRegistryProvider.getIfAvailable();
+            meterRegistry = registry;
+        }
+        return registry;
+    }
+}
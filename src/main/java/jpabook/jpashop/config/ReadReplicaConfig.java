@@ -0,0 +1,145 @@
+package jpabook.jpashop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 읽기 복제본 라우팅 (jpashop.datasource.routing.enabled=true 일때만)
+ * - primary는 spring.datasource.*, 복제본은 jpashop.datasource.routing.replicas[*]로 각각 HikariCP 풀을 만듦
+ * - dataSource 빈 = ReadWriteRoutingDataSource, 트랜잭션 매니저가 트랜잭션 시작시 readOnly 여부를 알려줌
+ * - 커넥션 풀 메트릭은 풀마다 hikaricp.connections.* (pool=primary|복제본 이름)
+ * - 로컬에서는 복제본 url을 primary와 같은 H2 DB로 지정하고 lag-query를 "select 0"으로 하면 됨
+ */
+@Configuration
+@ConditionalOnProperty(name = "jpashop.datasource.routing.enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class ReadReplicaConfig {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private ReadWriteRoutingDataSource routing;
+
+    @Bean(destroyMethod = "stop")
+    public ReplicaLagMonitor replicaLagMonitor(RoutingDataSourceProperties properties, Environment env) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        Map<String, String> lagQueries = new HashMap<>();
+        int index = 0;
+        for (RoutingDataSourceProperties.Replica replica : properties.getReplicas()) {
+            String name = replica.getName() != null ? replica.getName() : "replica-" + (++index);
+            replicas.put(name, createReplica(name, replica, env));
+            lagQueries.put(name, replica.getLagQuery() != null ? replica.getLagQuery() : properties.getLagQuery());
+        }
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replicas, lagQueries, properties.getMaxReplicationLag());
+        monitor.start(properties.getLagCheckInterval());
+        return monitor;
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties, Environment env, ReplicaLagMonitor replicaLagMonitor) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(env).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        pools.add(primary);
+
+        Map<Object, Object> targets = new HashMap<>(replicaLagMonitor.getReplicas());
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+
+        routing = new ReadWriteRoutingDataSource(replicaLagMonitor);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.setLenientFallback(false);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    /**
+     * 트랜잭션 시작(doBegin)에서 커넥션을 얻으므로 그 동안 readOnly 여부를 라우팅 데이터소스에 알려줌
+     */
+    @Bean
+    public PlatformTransactionManager transactionManager(ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+        JpaTransactionManager transactionManager = new JpaTransactionManager() {
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                if (!definition.isReadOnly()) {
+                    super.doBegin(transaction, definition);
+                    return;
+                }
+                ReadWriteRoutingDataSource.readOnly(() -> {
+                    super.doBegin(transaction, definition);
+                    return null;
+                });
+            }
+        };
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+
+    /**
+     * 복제본 풀은 빈이 아니라서 스프링 부트가 메트릭을 등록하지 않음 -> 직접 등록
+     * (dataSource를 파라미터로 받아서 풀이 만들어진 뒤에 실행되게 함, MeterRegistry -> dataSource 순환참조 방지)
+     */
+    @Bean
+    public MeterBinder routingDataSourceMetrics(DataSource dataSource, ReplicaLagMonitor replicaLagMonitor) {
+        return registry -> {
+            pools.stream()
+                    .filter(pool -> pool.getMetricsTrackerFactory() == null && pool.getMetricRegistry() == null) //primary는 스프링 부트가 등록했을수 있음
+                    .forEach(pool -> pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            routing.bindTo(registry);
+            replicaLagMonitor.bindTo(registry);
+        };
+    }
+
+    /**
+     * 트랜잭션이 끝나면 커넥션을 반납 (기본은 EntityManager가 닫힐때까지 보유)
+     * -> OSIV로 요청 내내 같은 EntityManager를 쓰더라도 트랜잭션마다 다시 라우팅됨
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put("hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+
+    /**
+     * dataSource 빈은 프록시라서 스프링이 풀을 닫아주지 않음
+     */
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private HikariDataSource createReplica(String name, RoutingDataSourceProperties.Replica replica, Environment env) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        if (replica.getDriverClassName() != null) {
+            dataSource.setDriverClassName(replica.getDriverClassName());
+        }
+        dataSource.setMaximumPoolSize(replica.getMaximumPoolSize() != null ? replica.getMaximumPoolSize()
+                : env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        dataSource.setReadOnly(true);
+        pools.add(dataSource);
+        return dataSource;
+    }
+}
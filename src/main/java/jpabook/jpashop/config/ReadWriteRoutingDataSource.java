@@ -0,0 +1,80 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 읽기전용 트랜잭션(@Transactional(readOnly = true)) -> 복제본, 나머지 -> primary
+ * - 커넥션은 트랜잭션 시작(doBegin)때 얻는데 그때는 아직 TransactionSynchronizationManager에 readOnly가 설정되기 전
+ *   -> ReadReplicaConfig의 트랜잭션 매니저가 doBegin 동안 readOnly(...)로 표시해줌
+ *   (p6spy가 커넥션을 얻자마자 getMetaData()를 호출하므로 LazyConnectionDataSourceProxy로는 늦출수 없음)
+ * - 읽기전용 트랜잭션 안에서 쓰기 트랜잭션(REQUIRED)을 호출하면 바깥 트랜잭션(복제본)에 참여하므로 주의
+ * - 사용할수 있는 복제본이 없으면 primary (ReplicaLagMonitor)
+ * - 메트릭 : jdbc.routing.connections (target=primary|복제본 이름), jdbc.routing.fallback
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements MeterBinder {
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final Map<String, LongAdder> connections = new ConcurrentHashMap<>();
+    private final LongAdder fallback = new LongAdder();
+
+    public ReadWriteRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        connections.put(PRIMARY, new LongAdder());
+        lagMonitor.getReplicas().keySet().forEach(name -> connections.put(name, new LongAdder()));
+    }
+
+    /**
+     * query 안에서 얻는 커넥션은 복제본으로 (트랜잭션 시작, 트랜잭션 밖에서 실행하는 ParallelQueryExecutor 조회)
+     */
+    public static <T> T readOnly(Supplier<T> query) {
+        Boolean previous = READ_ONLY.get();
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            if (previous == null) {
+                READ_ONLY.remove();
+            } else {
+                READ_ONLY.set(previous);
+            }
+        }
+    }
+
+    public static boolean isReadOnly() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() || Boolean.TRUE.equals(READ_ONLY.get());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String target = PRIMARY;
+        if (isReadOnly()) {
+            String replica = lagMonitor.nextReplica();
+            if (replica == null) {
+                fallback.increment();
+            } else {
+                target = replica;
+            }
+        }
+        connections.get(target).increment();
+        return target;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        connections.forEach((target, count) -> FunctionCounter.builder("jdbc.routing.connections", count, LongAdder::sum)
+                .tag("target", target).register(registry));
+        FunctionCounter.builder("jdbc.routing.fallback", fallback, LongAdder::sum).register(registry);
+    }
+}
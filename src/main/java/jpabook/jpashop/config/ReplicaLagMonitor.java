@@ -0,0 +1,116 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 복제본마다 복제 지연을 주기적으로 조회해서 사용할수 있는 복제본 목록을 갱신
+ * - 지연이 maxReplicationLag보다 크거나 조회에 실패하면 목록에서 제외 -> 모두 제외되면 읽기도 primary로
+ * - 메트릭 : jdbc.replica.lag (초, 조회 실패시 NaN), jdbc.replica.available (1/0)
+ */
+@Slf4j
+public class ReplicaLagMonitor implements MeterBinder {
+    private final Map<String, DataSource> replicas;
+    private final Map<String, String> lagQueries;
+    private final double maxLagSeconds;
+    private final Map<String, Double> lags = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<String> available = List.of();
+    private ScheduledExecutorService scheduler;
+
+    public ReplicaLagMonitor(Map<String, DataSource> replicas, Map<String, String> lagQueries, Duration maxReplicationLag) {
+        this.replicas = replicas;
+        this.lagQueries = lagQueries;
+        this.maxLagSeconds = maxReplicationLag.toMillis() / 1000.0;
+    }
+
+    /**
+     * 사용할수 있는 복제본을 돌아가면서 (없으면 null)
+     */
+    public String nextReplica() {
+        List<String> current = available;
+        if (current.isEmpty()) {
+            return null;
+        }
+        return current.get(Math.floorMod(next.getAndIncrement(), current.size()));
+    }
+
+    public Map<String, DataSource> getReplicas() {
+        return replicas;
+    }
+
+    public List<String> getAvailableReplicas() {
+        return available;
+    }
+
+    public void check() {
+        List<String> previous = available;
+        List<String> result = new ArrayList<>(replicas.size());
+        replicas.forEach((name, dataSource) -> {
+            double lag = lagSeconds(name, dataSource);
+            boolean firstCheck = lags.put(name, lag) == null;
+            if (lag <= maxLagSeconds) {
+                result.add(name);
+            } else if (firstCheck || previous.contains(name)) { //제외되는 시점에만 경고
+                log.warn("복제본 {} 제외 - 복제 지연 {}초 (최대 {}초)", name, lag, maxLagSeconds);
+            }
+        });
+        available = List.copyOf(result);
+    }
+
+    public void start(Duration interval) {
+        check();
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::check, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        replicas.keySet().forEach(name -> {
+            Gauge.builder("jdbc.replica.lag", lags, l -> l.getOrDefault(name, Double.NaN))
+                    .tag("replica", name).baseUnit("seconds").register(registry);
+            Gauge.builder("jdbc.replica.available", this, m -> m.available.contains(name) ? 1 : 0)
+                    .tag("replica", name).register(registry);
+        });
+    }
+
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private double lagSeconds(String name, DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(Math.max(1, (int) Math.ceil(maxLagSeconds)));
+            try (ResultSet rs = statement.executeQuery(lagQueries.get(name))) {
+                return rs.next() ? rs.getDouble(1) : 0; //null(복제중이 아님) -> 0
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.debug("복제본 {} 지연 조회 실패", name, e);
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기 복제본 라우팅 설정 (jpashop.datasource.routing.*) - ReadReplicaConfig
+ */
+@Data
+@ConfigurationProperties("jpashop.datasource.routing")
+public class RoutingDataSourceProperties {
+    /**
+     * 복제 지연이 이 값보다 크면 해당 복제본은 사용하지 않음
+     */
+    private Duration maxReplicationLag = Duration.ofSeconds(5);
+
+    private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+    /**
+     * 복제 지연(초)을 조회하는 쿼리 - 기본은 PostgreSQL 스트리밍 복제 (받은 WAL을 모두 적용했으면 0)
+     */
+    private String lagQuery = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0"
+            + " else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Data
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private Integer maximumPoolSize; //없으면 spring.datasource.hikari.maximum-pool-size
+        private String lagQuery;         //없으면 routing.lag-query
+    }
+}
@@ -0,0 +1,94 @@
+package jpabook.jpashop.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 가상 스레드 실행 모드 (JDK 21 이상, jpashop.virtual-threads.enabled=true 일때만)
+ * - Tomcat 요청 처리, @Async, MVC 비동기(주문 내보내기)를 요청마다 가상 스레드로 실행 -> 요청 스레드 수 제한(server.tomcat.threads.max)이 없어짐
+ * - 대신 DB 커넥션 수가 동시 처리량의 상한이 되므로 ConnectionLimitingDataSource로 커넥션 대기자를 줄세움
+ *   (max-connections 기본값은 HikariCP maximum-pool-size)
+ * - JDBC 드라이버 내부의 synchronized 구간에서는 가상 스레드가 캐리어 스레드를 점유함(pinning)
+ *   -> 커넥션 풀을 CPU 코어 수보다 아주 크게 잡아도 처리량이 늘지 않음, -Djdk.tracePinnedThreads=short 로 확인
+ * - 부하 테스트 : load-test/orders-v4.js
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "jpashop.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        log.info("가상 스레드 실행 모드");
+        return VirtualThreads.newExecutor("vt-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * @Async, MVC 비동기 요청에서 사용 (기본 ThreadPoolTaskExecutor 대신)
+     */
+    @Bean(name = {"applicationTaskExecutor", "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment env) {
+        int maxConnections = env.getProperty("jpashop.virtual-threads.max-connections", Integer.class,
+                env.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+        Duration wait = env.getProperty("jpashop.virtual-threads.connection-wait", Duration.class, Duration.ofSeconds(30));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && "dataSource".equals(beanName) && !(bean instanceof ConnectionLimitingDataSource)) {
+                    log.info("커넥션 동시 사용 제한 {}개, 대기 {}", maxConnections, wait);
+                    return new ConnectionLimitingDataSource((DataSource) bean, maxConnections, wait.toMillis());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * jdbc.connections.limiter.active / waiting
+     */
+    @Bean
+    public MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            ConnectionLimitingDataSource limiter = unwrap(dataSource);
+            if (limiter == null) {
+                return;
+            }
+            Gauge.builder("jdbc.connections.limiter.active", limiter, ConnectionLimitingDataSource::getActiveCount)
+                    .register(registry);
+            Gauge.builder("jdbc.connections.limiter.waiting", limiter, ConnectionLimitingDataSource::getWaitingCount)
+                    .register(registry);
+        };
+    }
+
+    private static ConnectionLimitingDataSource unwrap(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(ConnectionLimitingDataSource.class) ? dataSource.unwrap(ConnectionLimitingDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.WebContentInterceptor;
+
+/**
+ * ETag로 조건부 GET을 하는 목록(CatalogVersion)의 캐시 헤더
+ * - Cache-Control: no-cache -> 브라우저/게이트웨이가 저장은 하되 매번 If-None-Match로 확인 (변경 후 이전 목록을 보여주지 않음)
+ * - Vary: Accept -> 같은 URL이라도 응답 포맷(JSON/Smile/CBOR)별로 따로 캐시
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        WebContentInterceptor interceptor = new WebContentInterceptor();
+        interceptor.setCacheControl(CacheControl.noCache());
+        interceptor.setVaryByRequestHeaders("Accept");
+        registry.addInterceptor(interceptor).addPathPatterns("/items", "/order", "/api/v2/members");
+    }
+}
@@ -1,7 +1,8 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CatalogVersion;
+import jpabook.jpashop.repository.ItemListQueryDto;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.UpdateItemDto;
 import lombok.RequiredArgsConstructor;
@@ -11,6 +12,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,6 +20,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemController {
     private final ItemService itemService;
+    private final CatalogVersion catalogVersion;
 
     @GetMapping("/items/new")
     public String createForm(Model model) {
@@ -32,9 +35,15 @@ public class ItemController {
         return "redirect:/";
     }
 
+    /**
+     * 상품이 바뀌지 않았으면(If-None-Match) 목록 조회없이 304 (ETag는 집계 쿼리 한번)
+     */
     @GetMapping("/items")
-    public String list(Model model) {
-        List<Item> items = itemService.findItems();
+    public String list(WebRequest request, Model model) {
+        if (request.checkNotModified(catalogVersion.getItemsEtag())) {
+            return null;
+        }
+        List<ItemListQueryDto> items = itemService.findItemList();
         model.addAttribute("items", items);
         return "items/itemList";
     }
@@ -1,19 +1,28 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
-import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CatalogVersion;
+import jpabook.jpashop.repository.ItemListQueryDto;
+import jpabook.jpashop.repository.MemberOptionQueryDto;
+import jpabook.jpashop.repository.OrderListQueryDto;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderIntake;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -23,11 +32,19 @@ public class OrderController {
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final CatalogVersion catalogVersion;
+    private final ObjectProvider<OrderIntake> orderIntake;
 
+    /**
+     * 회원, 상품이 바뀌지 않았으면(If-None-Match) 목록 조회없이 304 (ETag는 집계 쿼리 두번)
+     */
     @GetMapping("/order")
-    public String orderForm(Model model) {
-        List<Member> members = memberService.findMembers();
-        List<Item> items = itemService.findItems();
+    public String orderForm(WebRequest request, Model model) {
+        if (request.checkNotModified(catalogVersion.getCatalogEtag())) {
+            return null;
+        }
+        List<MemberOptionQueryDto> members = memberService.findMemberOptions();
+        List<ItemListQueryDto> items = itemService.findItemList();
 
         model.addAttribute("members", members);
         model.addAttribute("items", items);
@@ -40,15 +57,27 @@ public class OrderController {
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count){
 
-        orderService.order(memberId, itemId, count);
+        //주문 접수를 켰으면 재고만 차감하고 저장은 뒤에서 (목록에는 조금 늦게 보일수 있음)
+        OrderIntake intake = orderIntake.getIfAvailable();
+        if (intake != null) {
+            intake.submit(memberId, itemId, count);
+        } else {
+            orderService.order(memberId, itemId, count);
+        }
         return "redirect:/orders";
     }
 
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                            @PageableDefault(size = 100) Pageable pageable,
                             Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
-        model.addAttribute("orders", orders);
+        Slice<OrderListQueryDto> orders = orderService.findOrderList(orderSearch, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        model.addAttribute("orders", orders.getContent());
+        model.addAttribute("page", orders);
+        if (orders instanceof Page) {
+            model.addAttribute("totalCount", ((Page<OrderListQueryDto>) orders).getTotalElements());
+        }
+        model.addAttribute("items", itemService.findItemList());
         return "order/orderList";
     }
 }
@@ -1,14 +1,21 @@
 package jpabook.jpashop.domain;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.repository.MemberNameIndexListener;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(MemberNameIndexListener.class) //회원명 검색 인덱스
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+@Table(indexes = @Index(name = "uk_member_name", columnList = "name", unique = true)) //회원명 중복 방지 (동시 가입도)
 @Getter
 @Setter
 public class Member {
@@ -20,9 +27,14 @@ public class Member {
 
     private int age;
 
+    @JsonIgnore
+    @Version //수정할때마다 증가 -> 회원 목록 ETag(CatalogVersion)
+    private Long version;
+
     @Embedded
     private Address address;
 
+    @OptimisticLock(excluded = true) //주문이 추가되어도 회원 version은 그대로 (주문마다 member update X)
     @OneToMany(mappedBy = "member") // Order에 있는 member 필드에 의해 매핑되었음. -> Order의 member가 연관관계의 주인
     private List<Order> orders = new ArrayList<>();
 }
@@ -10,14 +10,43 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
+/**
+ * 엔티티 그래프 (조회할때 같이 가져올 연관관계 - OrderFetchProfile로 선택)
+ * - order.summary : member, delivery (ToOne만 -> 페이징 가능)
+ * - order.withItems : + orderItems, orderItems.item
+ */
 @Entity
-@Table(name = "orders")
+@NamedEntityGraphs({
+        @NamedEntityGraph(name = Order.GRAPH_SUMMARY, attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery")
+        }),
+        @NamedEntityGraph(name = Order.GRAPH_WITH_ITEMS, attributeNodes = {
+                @NamedAttributeNode("member"),
+                @NamedAttributeNode("delivery"),
+                @NamedAttributeNode(value = "orderItems", subgraph = "orderItems")
+        }, subgraphs = @NamedSubgraph(name = "orderItems", attributeNodes = @NamedAttributeNode("item")))
+})
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_order_date_id", columnList = "orderDate, order_id"), //키셋 페이징 (orderDate, order_id)
+        @Index(name = "idx_orders_total_price", columnList = "total_price") //주문금액 검색, 정렬
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
-    @Id @GeneratedValue
+    public static final String GRAPH_SUMMARY = "order.summary";
+    public static final String GRAPH_WITH_ITEMS = "order.withItems";
+
+    /**
+     * pooled 시퀀스 : 시퀀스를 한번 조회하면 50개의 id를 메모리에서 할당 (대량주문시 insert마다 시퀀스 조회X)
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     @Column(name = "order_id")
     private Long id;
 
@@ -42,6 +71,15 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status; // 주문상태 [ORDER,STATUS]
 
+    /**
+     * 주문금액 합계 (orderItems의 가격 * 수량 합)
+     * - 목록, 검색, 내보내기에서 orderItems를 읽지 않고 금액을 쓰기 위해 컬럼으로 저장
+     * - addOrderItem에서만 변경 (취소해도 주문금액은 그대로 유지)
+     */
+    @Setter(AccessLevel.NONE)
+    @Column(name = "total_price", nullable = false)
+    private int totalPrice;
+
     //== 연관관계 메서드==//
     public void setMember(Member member) {
         this.member = member;
@@ -51,6 +89,7 @@ public class Order {
     public void addOrderItem(OrderItem orderItem) {
         orderItems.add(orderItem);
         orderItem.setOrder(this);
+        totalPrice += orderItem.getToTalPrice();
     }
 
     public void setDelivery(Delivery delivery) {
@@ -73,27 +112,27 @@ public class Order {
 
     //== 비즈니스 로직 ==//
     /**
-     * 주문취소
+     * 주문취소 (주문금액(totalPrice)은 주문 당시 금액으로 남겨둠)
+     * 재고는 StockRestorer(StockService)로 복구 - 주문때와 같은 경로 (Item을 읽고 수정하지 않으므로 @Version 충돌 없음)
+     * 같은 상품은 합쳐서 상품 id 순서로 (동시에 취소해도 row 락 순서가 같음)
      */
-    public void cancel() {
+    public void cancel(StockRestorer stockRestorer) {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
         }
         this.setStatus(OrderStatus.CANCEL);
+        Map<Long, Integer> quantities = new TreeMap<>();
         for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
+            quantities.merge(orderItem.getItem().getId(), orderItem.getCount(), Integer::sum);
         }
+        quantities.forEach(stockRestorer::restoreStock);
     }
 
     //== 조회 로직 ==//
     /**
-     * 전체 주문 가격 조회
+     * 전체 주문 가격 조회 (저장된 값 -> orderItems를 로딩하지 않음)
      */
     public int getTotalPrice() {
-        int totalPrice =
-                orderItems.stream()
-                .mapToInt(OrderItem::getToTalPrice)
-                .sum();
         return totalPrice;
     }
 }
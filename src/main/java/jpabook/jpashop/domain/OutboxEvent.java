@@ -0,0 +1,46 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 이벤트 아웃박스 - 주문과 같은 트랜잭션에서 저장, OutboxRelay가 외부로 보낸 뒤 삭제
+ * - 보낸 뒤에 삭제하므로 테이블에는 아직 보내지 않은 이벤트만 남음 (id 순서로 조회 -> PK 인덱스만 사용)
+ * - payload : OrderStatusChangedEvent JSON
+ */
+@Entity
+@Table(name = "order_outbox")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    @Column(name = "outbox_id")
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(nullable = false, length = 30)
+    private String type; // ORDER_CREATED, ORDER_CANCELED
+
+    @Column(nullable = false, length = 1000)
+    private String payload;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public static OutboxEvent create(Long orderId, String type, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.orderId = orderId;
+        event.type = type;
+        event.payload = payload;
+        event.createdAt = LocalDateTime.now();
+        return event;
+    }
+}
@@ -0,0 +1,8 @@
+package jpabook.jpashop.domain;
+
+/**
+ * 주문취소시 재고 복구 (Order.cancel에서 호출, 구현은 StockService)
+ */
+public interface StockRestorer {
+    void restoreStock(Long itemId, int count);
+}
@@ -5,12 +5,21 @@ import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.service.UpdateItemDto;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * 2차캐시 (READ_WRITE)
+ * - removeStock/addStock/change 로 변경하면 변경감지(update) 후 커밋시점에 캐시 엔트리도 갱신됨
+ *   (커밋 전까지는 soft lock이 걸려서 다른 트랜잭션은 캐시 대신 DB를 조회 -> 변경전 재고를 읽지 않음)
+ * - Book, Album, Movie는 루트 엔티티(Item)의 캐시 영역을 같이 사용
+ */
 @Entity
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name="dtype")
 @Getter @Setter
@@ -23,6 +32,15 @@ public abstract class Item {
     protected int price;
     protected int stockQuantity;
 
+    /**
+     * 낙관적 락 - 엔티티를 읽고 수정하는 방식(removeStock, addStock, change)으로 동시에 변경하면
+     * 나중에 커밋하는 쪽이 예외(OptimisticLockException)가 발생 -> 재고가 덮어써지지(초과판매) 않음
+     * 주문시 재고차감은 StockService 참고
+     * 상품 목록 ETag(CatalogVersion)에도 사용
+     */
+    @Version
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categries = new ArrayList<>();
 
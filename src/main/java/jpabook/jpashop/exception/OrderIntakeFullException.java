@@ -0,0 +1,31 @@
+package jpabook.jpashop.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * 주문 접수 큐가 가득 참 (OrderIntake) - 차감했던 재고는 되돌린 상태, 잠시 후 다시 요청
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class OrderIntakeFullException extends RuntimeException {
+    public OrderIntakeFullException() {
+        super();
+    }
+
+    public OrderIntakeFullException(String message) {
+        super(message);
+    }
+
+    public OrderIntakeFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public OrderIntakeFullException(Throwable cause) {
+        super(cause);
+    }
+
+    @Override
+    public String getMessage() {
+        return "주문이 많아 잠시 후 다시 시도해주세요.";
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+
+/**
+ * 상품/회원 목록 버전 -> 조건부 GET(If-None-Match)용 ETag, 버전이 같으면 목록을 조회하지 않고 304
+ * - 버전은 DB에서 집계 (건수, 최대 ID, @Version 합계)
+ *   insert -> 건수/최대 ID, update -> @Version 합계(재고 네이티브 update도 version + 1), delete -> 건수가 바뀜
+ *   => 서버가 여러대여도 모두 같은 DB 상태로 ETag를 만드므로 다른 서버의 변경도 바로 반영 (서버별 카운터X)
+ * - 목록보다 먼저 읽으므로 ETag가 목록 내용보다 새로울수는 없음 (커밋되지 않은 변경은 보이지 않음)
+ *   -> 목록이 더 새로우면 다음 요청에서 ETag가 달라서 다시 받음
+ * - 집계 쿼리 한번 (목록 조회, 직렬화, 전송보다 쌈)
+ * - 응답 포맷(JSON/Smile, gzip)이 달라도 내용은 같으므로 약한 ETag(W/)
+ */
+@Repository
+@RequiredArgsConstructor
+public class CatalogVersion {
+    private final EntityManager em;
+
+    public String getItemsEtag() {
+        return etag("i" + itemsVersion());
+    }
+
+    public String getMembersEtag() {
+        return etag("m" + membersVersion());
+    }
+
+    /**
+     * 상품, 회원 목록을 같이 보여주는 화면 (주문 화면)
+     */
+    public String getCatalogEtag() {
+        return etag("i" + itemsVersion() + "m" + membersVersion());
+    }
+
+    private String itemsVersion() {
+        return version(em.createQuery(
+                "select count(i), max(i.id), sum(i.version) from Item i", Object[].class)
+                .getSingleResult());
+    }
+
+    private String membersVersion() {
+        return version(em.createQuery(
+                "select count(m), max(m.id), sum(m.version) from Member m", Object[].class)
+                .getSingleResult());
+    }
+
+    private String version(Object[] row) {
+        return row[0] + "." + row[1] + "." + row[2];
+    }
+
+    private String etag(String version) {
+        return "W/\"" + version + "\"";
+    }
+}
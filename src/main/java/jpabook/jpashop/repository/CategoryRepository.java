@@ -0,0 +1,81 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 상위 카테고리 id를 행을 잠그면서 조회 (select ... for update, 최상위이거나 없으면 null)
+     * 커밋된 최신 값을 읽고 트랜잭션이 끝날때까지 다른 트랜잭션이 이 카테고리를 옮기지 못함
+     */
+    public Long lockParentId(Long categoryId) {
+        List<?> parentIds = em.createNativeQuery(
+                "select parent_id from category where category_id = :categoryId for update")
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+        if (parentIds.isEmpty() || parentIds.get(0) == null) {
+            return null;
+        }
+        return ((Number) parentIds.get(0)).longValue();
+    }
+
+    /**
+     * 카테고리 트리 스냅샷 적재용 (id, parentId, name) - 부모는 id만 (Category 엔티티를 읽지 않음)
+     */
+    public List<Object[]> findAllIdParentIdAndName() {
+        return em.createQuery(
+                "select c.id, p.id, c.name from Category c" +
+                        " left join c.parent p", Object[].class)
+                .getResultList();
+    }
+
+    /**
+     * 카테고리들에 속한 상품 (카테고리 하위 트리의 id 목록은 CategoryTree에서)
+     */
+    public List<Item> findItemsByCategoryIds(Collection<Long> categoryIds) {
+        return em.createQuery(
+                "select distinct i from Category c" +
+                        " join c.items i" +
+                        " where c.id in :categoryIds" +
+                        " order by i.id", Item.class)
+                .setParameter("categoryIds", categoryIds)
+                .getResultList();
+    }
+
+    /**
+     * 하위 카테고리(자기 자신 포함)에 속한 상품 id - 재귀 CTE로 트리를 DB에서 한번에 탐색
+     * 스냅샷에 아직 없는 카테고리(다른 인스턴스에서 추가)일때 사용
+     */
+    @SuppressWarnings("unchecked")
+    public List<Long> findItemIdsInSubtree(Long categoryId) {
+        List<Number> ids = em.createNativeQuery(
+                "with recursive subtree (category_id) as (" +
+                        " select category_id from category where category_id = :categoryId" +
+                        " union all" +
+                        " select c.category_id from category c join subtree s on c.parent_id = s.category_id)" +
+                        " select distinct ci.item_id from category_item ci" +
+                        " join subtree s on s.category_id = ci.category_id")
+                .setParameter("categoryId", categoryId)
+                .getResultList();
+        return ids.stream().map(Number::longValue).sorted().collect(Collectors.toList());
+    }
+}
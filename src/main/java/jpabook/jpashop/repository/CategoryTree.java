@@ -0,0 +1,197 @@
+package jpabook.jpashop.repository;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 카테고리 트리 스냅샷 (불변)
+ * - 전위순회(pre-order) 순서로 배열에 담음 -> 하위 카테고리는 항상 [자기위치, end) 구간에 연속으로 있음
+ *   => 하위 카테고리 목록은 배열 구간 그대로(복사X), 상하위 관계 확인은 O(1)
+ * - 상위 카테고리 목록은 부모 위치를 따라 올라감 O(깊이)
+ * - 변경은 새 스냅샷을 만들어서 통째로 교체 (CategoryService) -> 읽는 쪽은 락 없이 항상 완성된 트리를 봄
+ * - 루트에서 닿지 않는 카테고리(부모끼리 순환)는 제외
+ */
+public final class CategoryTree {
+    public static final CategoryTree EMPTY = of(List.of());
+
+    private final Map<Long, Integer> positions;
+    private final long[] ids;       //전위순회 순서
+    private final String[] names;
+    private final int[] parents;    //부모 위치, 루트는 -1
+    private final int[] ends;       //하위 카테고리 구간의 끝 (exclusive)
+
+    private CategoryTree(Map<Long, Integer> positions, long[] ids, String[] names, int[] parents, int[] ends) {
+        this.positions = positions;
+        this.ids = ids;
+        this.names = names;
+        this.parents = parents;
+        this.ends = ends;
+    }
+
+    /**
+     * @param rows (id, parentId, name) - parentId가 null이거나 없는 카테고리면 루트
+     */
+    public static CategoryTree of(List<Object[]> rows) {
+        Map<Long, List<Object[]>> children = new HashMap<>();
+        List<Object[]> roots = new ArrayList<>();
+        Map<Long, Object[]> byId = new HashMap<>();
+        for (Object[] row : rows) {
+            byId.put((Long) row[0], row);
+        }
+        for (Object[] row : rows) {
+            Long parentId = (Long) row[1];
+            if (parentId == null || !byId.containsKey(parentId)) {
+                roots.add(row);
+            } else {
+                children.computeIfAbsent(parentId, id -> new ArrayList<>()).add(row);
+            }
+        }
+
+        int size = rows.size();
+        Map<Long, Integer> positions = new HashMap<>(size * 2);
+        long[] ids = new long[size];
+        String[] names = new String[size];
+        int[] parents = new int[size];
+        int[] ends = new int[size];
+
+        //재귀 대신 스택 (깊은 트리에서 StackOverflow 방지), 형제는 id 순
+        Comparator<Object[]> byIdDesc = Comparator.comparing((Object[] row) -> (Long) row[0]).reversed();
+        Deque<Integer> open = new ArrayDeque<>(); //하위 구간이 아직 닫히지 않은 카테고리 위치 (루트 ~ 현재)
+        Deque<Object[]> stack = new ArrayDeque<>();
+        Map<Object[], Integer> parentOf = new HashMap<>();
+        roots.sort(byIdDesc);
+        roots.forEach(stack::push);
+        int next = 0;
+        while (!stack.isEmpty()) {
+            Object[] row = stack.pop();
+            int parent = parentOf.getOrDefault(row, -1);
+            while (!open.isEmpty() && open.peek() != parent) {
+                ends[open.pop()] = next;
+            }
+            int position = next++;
+            ids[position] = (Long) row[0];
+            names[position] = (String) row[2];
+            parents[position] = parent;
+            positions.put(ids[position], position);
+            open.push(position);
+
+            List<Object[]> childRows = new ArrayList<>(children.getOrDefault(ids[position], List.of()));
+            childRows.sort(byIdDesc);
+            for (Object[] child : childRows) {
+                parentOf.put(child, position);
+                stack.push(child);
+            }
+        }
+        while (!open.isEmpty()) {
+            ends[open.pop()] = next;
+        }
+
+        return new CategoryTree(positions,
+                next == size ? ids : Arrays.copyOf(ids, next),
+                next == size ? names : Arrays.copyOf(names, next),
+                next == size ? parents : Arrays.copyOf(parents, next),
+                next == size ? ends : Arrays.copyOf(ends, next));
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean contains(Long id) {
+        return positions.containsKey(id);
+    }
+
+    public String getName(Long id) {
+        return names[position(id)];
+    }
+
+    public Long getParentId(Long id) {
+        int parent = parents[position(id)];
+        return parent < 0 ? null : ids[parent];
+    }
+
+    public List<Long> getRootIds() {
+        List<Long> result = new ArrayList<>();
+        for (int i = 0; i < ids.length; i = ends[i]) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    public List<Long> getChildIds(Long id) {
+        int position = position(id);
+        List<Long> result = new ArrayList<>();
+        for (int i = position + 1; i < ends[position]; i = ends[i]) {
+            result.add(ids[i]);
+        }
+        return result;
+    }
+
+    /**
+     * 자기 자신 + 모든 하위 카테고리 id (전위순회 순서, 배열 구간을 그대로 보여줌)
+     */
+    public List<Long> getSubtreeIds(Long id) {
+        int position = position(id);
+        return new Range(position, ends[position]);
+    }
+
+    /**
+     * 상위 카테고리 id (부모부터 루트까지)
+     */
+    public List<Long> getAncestorIds(Long id) {
+        List<Long> result = new ArrayList<>();
+        for (int i = parents[position(id)]; i >= 0; i = parents[i]) {
+            result.add(ids[i]);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * id가 ancestorId 자신이거나 그 하위 카테고리인지 (O(1))
+     */
+    public boolean isInSubtree(Long id, Long ancestorId) {
+        Integer position = positions.get(id);
+        Integer ancestor = positions.get(ancestorId);
+        return position != null && ancestor != null && ancestor <= position && position < ends[ancestor];
+    }
+
+    private int position(Long id) {
+        Integer position = positions.get(id);
+        if (position == null) {
+            throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId=" + id);
+        }
+        return position;
+    }
+
+    private class Range extends AbstractList<Long> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        Range(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Long get(int index) {
+            if (index < 0 || index >= to - from) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return ids[from + index];
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository;
+
+import lombok.Data;
+
+/**
+ * 상품 목록, 주문 화면의 상품 선택
+ */
+@Data
+public class ItemListQueryDto {
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+    public ItemListQueryDto(Long id, String name, int price, int stockQuantity) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+}
@@ -2,9 +2,18 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -27,6 +36,119 @@ public class ItemRepository {
 
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
+                .setHint(QueryHints.HINT_CACHEABLE, true) //쿼리캐시(ID목록) + 2차캐시(Item) -> item 테이블이 변경되기 전까지 DB 조회X
                 .getResultList();
     }
+
+    /**
+     * 상품 목록 화면용 - 필요한 컬럼만 DTO로
+     * 쿼리캐시X : 재고는 네이티브 update(updateStock)로 바뀌고 이때 item 테이블 쿼리캐시는 무효화하지 않으므로
+     *            캐시하면 TTL 동안 이전 재고가 보임
+     */
+    public List<ItemListQueryDto> findAllForList() {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.ItemListQueryDto(i.id, i.name, i.price, i.stockQuantity)" +
+                        " from Item i order by i.id", ItemListQueryDto.class)
+                .getResultList();
+    }
+
+    public List<Item> findAllById(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * 현재 DB 재고 (2차캐시X)
+     */
+    public int findStockQuantity(Long itemId) {
+        return em.createQuery("select i.stockQuantity from Item i where i.id = :itemId", Integer.class)
+                .setParameter("itemId", itemId)
+                .getSingleResult();
+    }
+
+    /**
+     * 재고 차감 - 조건부 update 한번으로 처리 (읽고-수정-쓰기 X)
+     * update set stock_quantity = stock_quantity - ? where stock_quantity >= ?
+     * => DB가 row 단위로 원자적으로 처리하므로 동시에 주문해도 초과판매 없음
+     * @return 재고가 부족하면 0
+     */
+    public int removeStock(Long itemId, int quantity) {
+        return updateStock(
+                "update item set stock_quantity = stock_quantity - :quantity, version = version + 1" +
+                        " where item_id = :itemId and stock_quantity >= :quantity", itemId, quantity, -quantity);
+    }
+
+    public int addStock(Long itemId, int quantity) {
+        return updateStock(
+                "update item set stock_quantity = stock_quantity + :quantity, version = version + 1" +
+                        " where item_id = :itemId", itemId, quantity, quantity);
+    }
+
+    /**
+     * - 네이티브 쿼리는 기본적으로 2차캐시 영역 전체(item, 쿼리캐시)를 무효화함
+     *   => 동기화 대상을 비워두고(addSynchronizedQuerySpace("")) 해당 Item 캐시만 직접 제거
+     * - 동기화 대상이 없으면 자동 flush도 되지 않음
+     *   => 영속성 컨텍스트에 해당 Item이 있을때만 직접 flush (아직 insert/update 되지 않은 Item 대비)
+     * - 영속성 컨텍스트의 Item은 다시 읽지 않고 같은 값으로 수정 (refresh select X)
+     */
+    private int updateStock(String sql, Long itemId, int quantity, int delta) {
+        Item loaded = findLoaded(itemId);
+        if (loaded != null) {
+            em.flush();
+        }
+        int updated = em.createNativeQuery(sql)
+                .setParameter("quantity", quantity)
+                .setParameter("itemId", itemId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("")
+                .executeUpdate();
+        if (updated > 0) {
+            evictCache(itemId);
+            if (loaded != null) {
+                applyStockUpdate(loaded, delta);
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * 2차캐시에 있을때만 제거 (없으면 캐시 작업X)
+     * 커밋 전에 다른 트랜잭션이 이전 값을 다시 캐시에 올릴수 있으므로 트랜잭션이 끝난 뒤에도 있으면 한번 더 제거
+     */
+    public void evictCache(Long itemId) {
+        Cache cache = em.getEntityManagerFactory().getCache();
+        if (cache.contains(Item.class, itemId)) {
+            cache.evict(Item.class, itemId);
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (cache.contains(Item.class, itemId)) {
+                        cache.evict(Item.class, itemId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 영속성 컨텍스트에 이미 올라와있는 Item (없거나 초기화되지 않은 프록시이면 null -> 나중에 DB에서 읽음)
+     */
+    private Item findLoaded(Long itemId) {
+        Item item = em.getReference(Item.class, itemId);
+        return Hibernate.isInitialized(item) ? (Item) Hibernate.unproxy(item) : null;
+    }
+
+    /**
+     * DB에 반영한 재고, 버전을 영속성 컨텍스트의 Item에도 반영
+     * 스냅샷(변경감지 기준)도 같이 바꿔서 변경감지 update가 나가지 않게 함 (flush 직후이므로 다른 변경은 없음)
+     */
+    private void applyStockUpdate(Item item, int delta) {
+        item.setStockQuantity(item.getStockQuantity() + delta);
+        item.setVersion(item.getVersion() + 1);
+        EntityEntry entry = em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getEntry(item);
+        entry.postUpdate(item, entry.getPersister().getPropertyValues(item), item.getVersion());
+    }
 }
@@ -0,0 +1,104 @@
+package jpabook.jpashop.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 회원명 블룸 필터 - 회원가입 중복검사에서 "확실히 없는 이름"이면 DB 조회를 건너뜀
+ * - mightContain이 false면 그 이름은 한번도 저장된적 없음, true면 있을수도 있음(오탐) -> DB에서 확인
+ * - 이름은 추가만 함 (이름을 바꾸거나 롤백되어도 지우지 않음 -> 오탐이 조금 늘뿐 잘못 통과시키지 않음)
+ * - 애플리케이션 시작시 DB에서 적재하기 전(ready 전)에는 항상 true
+ * - 다른 인스턴스에서 가입한 이름은 모르므로 최종 중복 방지는 member.name 유니크 인덱스 (MemberService)
+ * - 크기는 expected-names 기준 오탐률 1%, 회원이 그보다 많아지면 오탐률만 올라감 (경고 로그)
+ */
+@Slf4j
+@Component
+public class MemberNameFilter {
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final long SEED = 0x9E3779B97F4A7C15L;
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedNames;
+    private final AtomicLong names = new AtomicLong();
+    private final AtomicBoolean overflowWarned = new AtomicBoolean();
+    private volatile boolean ready;
+
+    public MemberNameFilter(@Value("${jpashop.member.name-filter.expected-names:1000000}") long expectedNames) {
+        this.expectedNames = expectedNames;
+        long bits = (long) Math.ceil(-expectedNames * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) ((bits + 63) / 64));
+        this.bitCount = this.bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedNames * Math.log(2)));
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long hash = hash(name);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ SEED) | 1;
+        boolean added = false;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bit(h1, h2, i);
+            long mask = 1L << bit;
+            added |= (bits.getAndAccumulate((int) (bit >>> 6), mask, (value, m) -> value | m) & mask) == 0;
+        }
+        //같은 이름을 다시 넣은 경우(회원 정보 수정)는 세지 않음
+        if (added && names.incrementAndGet() > expectedNames && overflowWarned.compareAndSet(false, true)) {
+            log.warn("회원명 블룸 필터 크기를 넘었습니다. 오탐이 늘어나므로 jpashop.member.name-filter.expected-names를 늘려주세요. expected={}", expectedNames);
+        }
+    }
+
+    public boolean mightContain(String name) {
+        if (!ready || name == null) {
+            return true;
+        }
+        long hash = hash(name);
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ SEED) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = bit(h1, h2, i);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * DB의 회원명을 모두 넣은 뒤에 호출 (MemberService)
+     */
+    public void ready() {
+        ready = true;
+    }
+
+    //i번째 해시 위치 (두 해시로 k개를 만듦 - double hashing)
+    private long bit(long h1, long h2, int i) {
+        return Math.floorMod(h1 + i * h2, bitCount);
+    }
+
+    //FNV-1a 64
+    private static long hash(String name) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            hash ^= name.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    //SplitMix64 finalizer - 비트를 고르게 섞음
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,111 @@
+package jpabook.jpashop.repository;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 회원명 부분검색용 메모리 인덱스 (n-gram)
+ * - like '%이름%'은 DB 인덱스를 못타서 member를 전부 읽음 -> 회원 id를 메모리에서 먼저 찾고 주문은 id로 조회
+ * - 이름을 2글자씩 잘라서 (bigram -> 회원 id 목록)으로 저장, 검색어의 bigram 목록을 교집합한 뒤 실제로 포함하는지 확인
+ *   (한글 이름은 2~3글자라 trigram 대신 bigram, 1글자 검색은 이름 전체를 훑음)
+ * - Member 저장/수정/삭제는 MemberNameIndexListener가 반영하고, 애플리케이션 시작시 DB에서 전체 적재 (MemberService)
+ * - 커밋 전인 회원이 잠깐 포함될수 있지만 주문은 DB에서 다시 조회하므로 결과에는 영향 없음
+ */
+@Component
+public class MemberNameIndex {
+    private static final int GRAM = 2;
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+
+    /**
+     * @return 이전에 인덱스에 있던 이름 (없었으면 null)
+     */
+    public synchronized String put(Long memberId, String name) {
+        String previous = remove(memberId);
+        if (name != null) {
+            String normalized = normalize(name);
+            names.put(memberId, normalized);
+            grams(normalized).forEach(gram -> grams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(memberId));
+        }
+        return previous;
+    }
+
+    /**
+     * @return 인덱스에 있던 이름 (없었으면 null)
+     */
+    public synchronized String remove(Long memberId) {
+        String previous = names.remove(memberId);
+        if (previous != null) {
+            grams(previous).forEach(gram -> {
+                Set<Long> ids = grams.get(gram);
+                if (ids != null) {
+                    ids.remove(memberId);
+                    if (ids.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            });
+        }
+        return previous;
+    }
+
+    /**
+     * 이름에 keyword가 포함된 회원 id (대소문자 구분X, id 순)
+     */
+    public List<Long> findIdsContaining(String keyword) {
+        String query = normalize(keyword);
+        Stream<Long> candidates;
+        if (query.length() < GRAM) {
+            candidates = names.keySet().stream();
+        } else {
+            List<Set<Long>> postings = new ArrayList<>();
+            for (String gram : grams(query).collect(Collectors.toSet())) {
+                Set<Long> ids = grams.get(gram);
+                if (ids == null) {
+                    return List.of();
+                }
+                postings.add(ids);
+            }
+            postings.sort(Comparator.comparingInt(Set::size)); //가장 작은 목록부터
+            Set<Long> smallest = postings.get(0);
+            List<Set<Long>> others = postings.subList(1, postings.size());
+            candidates = smallest.stream().filter(id -> others.stream().allMatch(ids -> ids.contains(id)));
+        }
+        return candidates
+                .filter(id -> {
+                    String name = names.get(id);
+                    return name != null && name.contains(query);
+                })
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Stream<String> grams(String name) {
+        if (name.length() < GRAM) {
+            return Stream.empty();
+        }
+        Stream.Builder<String> builder = Stream.builder();
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            builder.add(name.substring(i, i + GRAM));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,59 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Member insert/update/delete 후에 회원명 인덱스 반영, 트랜잭션이 롤백되면 되돌림
+ * + 회원명 블룸 필터(MemberNameFilter)에 추가 (필터는 되돌리지 않음)
+ * (스프링 부트가 엔티티 리스너를 스프링 빈으로 만들어줌 -> 생성자 주입 가능)
+ */
+@RequiredArgsConstructor
+public class MemberNameIndexListener {
+    private final MemberNameIndex memberNameIndex;
+    private final MemberNameFilter memberNameFilter;
+
+    @PostPersist
+    @PostUpdate
+    public void index(Member member) {
+        Long memberId = member.getId();
+        memberNameFilter.put(member.getName());
+        String previous = memberNameIndex.put(memberId, member.getName());
+        onRollback(() -> restore(memberId, previous));
+    }
+
+    @PostRemove
+    public void remove(Member member) {
+        Long memberId = member.getId();
+        String previous = memberNameIndex.remove(memberId);
+        onRollback(() -> restore(memberId, previous));
+    }
+
+    private void restore(Long memberId, String previous) {
+        if (previous == null) {
+            memberNameIndex.remove(memberId);
+        } else {
+            memberNameIndex.put(memberId, previous);
+        }
+    }
+
+    private void onRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+}
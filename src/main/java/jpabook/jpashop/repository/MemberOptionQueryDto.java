@@ -0,0 +1,17 @@
+package jpabook.jpashop.repository;
+
+import lombok.Data;
+
+/**
+ * 주문 화면의 회원 선택
+ */
+@Data
+public class MemberOptionQueryDto {
+    private Long id;
+    private String name;
+
+    public MemberOptionQueryDto(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+}
@@ -2,10 +2,30 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 
 public interface MemberRepository extends JpaRepository<Member, Long> {
+    //쿼리캐시 + 2차캐시 (member 테이블이 변경되기 전까지 DB 조회X)
+    @Override
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Member> findAll();
+
     //select m from m where m.name = ?
     List<Member> findByName(String name);
+
+    //중복검사용 - 엔티티를 읽지 않고 있는지만 (select m.id ... limit 1)
+    boolean existsByName(String name);
+
+    //주문 화면 회원 선택 (id, name만)
+    @Query("select new jpabook.jpashop.repository.MemberOptionQueryDto(m.id, m.name) from Member m order by m.id")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<MemberOptionQueryDto> findAllOptions();
+
+    //회원명 인덱스 적재용 (id, name)
+    @Query("select m.id, m.name from Member m")
+    List<Object[]> findAllIdAndName();
 }
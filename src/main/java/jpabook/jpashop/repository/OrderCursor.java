@@ -0,0 +1,57 @@
+package jpabook.jpashop.repository;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 키셋 페이징용 커서
+ * 클라이언트에는 내부 구조를 숨긴 불투명(opaque) 토큰으로 전달함
+ * - orderDate가 null이면 order_id 기준, 있으면 (orderDate, order_id) 기준
+ */
+@Getter
+public class OrderCursor {
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime orderDate;
+    private final Long orderId;
+
+    private OrderCursor(LocalDateTime orderDate, Long orderId) {
+        this.orderDate = orderDate;
+        this.orderId = orderId;
+    }
+
+    public static OrderCursor of(Long orderId) {
+        return new OrderCursor(null, orderId);
+    }
+
+    public static OrderCursor of(LocalDateTime orderDate, Long orderId) {
+        return new OrderCursor(orderDate, orderId);
+    }
+
+    public boolean isOrderDateCursor() {
+        return orderDate != null;
+    }
+
+    public String encode() {
+        String raw = isOrderDateCursor() ? orderDate + SEPARATOR + orderId : String.valueOf(orderId);
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int idx = raw.indexOf(SEPARATOR);
+            if (idx < 0) {
+                return of(Long.parseLong(raw));
+            }
+            return of(LocalDateTime.parse(raw.substring(0, idx)), Long.parseLong(raw.substring(idx + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("잘못된 커서입니다.", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+
+import java.util.List;
+
+/**
+ * 주문 조회시 같이 가져올 연관관계 (Order의 @NamedEntityGraph) - 화면/API가 쓰는 만큼만 조회
+ * - SUMMARY : 주문 + 회원, 배송 (쿼리 1번)
+ * - WITH_ITEMS : + 주문상품, 상품
+ *   페이징하지 않으면 컬렉션까지 한번에 조인 (쿼리 1번)
+ *   페이징하면 ToOne만 조인해서 페이징하고 주문상품, 상품은 default_batch_fetch_size씩 IN 쿼리로 (1 + 1 + 1)
+ *   (컬렉션을 조인한 채로 페이징하면 전체를 읽어서 메모리에서 페이징하므로)
+ */
+@Getter
+@RequiredArgsConstructor
+public enum OrderFetchProfile {
+    SUMMARY(Order.GRAPH_SUMMARY, false),
+    WITH_ITEMS(Order.GRAPH_WITH_ITEMS, true);
+
+    private final String graphName;
+    private final boolean withItems;
+
+    /**
+     * 페이징 쿼리에 쓸 그래프 (ToOne만)
+     */
+    String getPageGraphName() {
+        return Order.GRAPH_SUMMARY;
+    }
+
+    /**
+     * 페이징 쿼리로 조회한 주문들의 나머지 그래프를 batch fetch로 초기화 (트랜잭션 안에서 호출)
+     */
+    void initialize(List<Order> orders) {
+        if (!withItems) {
+            return;
+        }
+        for (Order order : orders) {
+            Hibernate.initialize(order.getOrderItems());
+        }
+        for (Order order : orders) {
+            for (OrderItem orderItem : order.getOrderItems()) {
+                Hibernate.initialize(orderItem.getItem());
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 화면 한 줄 (대표상품 = 주문의 첫번째 주문상품, SQL에서 골라옴)
+ */
+@Data
+public class OrderListQueryDto {
+    private Long orderId;
+    private String memberName;
+    private String itemName;
+    private int orderPrice;
+    private int count;
+    private int totalPrice;
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+
+    public OrderListQueryDto(Long orderId, String memberName, String itemName, int orderPrice, int count,
+                             int totalPrice, OrderStatus status, LocalDateTime orderDate) {
+        this.orderId = orderId;
+        this.memberName = memberName;
+        this.itemName = itemName;
+        this.orderPrice = orderPrice;
+        this.count = count;
+        this.totalPrice = totalPrice;
+        this.status = status;
+        this.orderDate = orderDate;
+    }
+}
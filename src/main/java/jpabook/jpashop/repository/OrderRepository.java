@@ -1,140 +1,368 @@
 package jpabook.jpashop.repository;
 
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
+@Transactional(readOnly = true) //컨트롤러에서 바로 호출하는 조회도 읽기전용 트랜잭션 (복제본 라우팅)
 @RequiredArgsConstructor
 public class OrderRepository {
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+    private static final Set<String> SORTABLE = Set.of("orderDate", "totalPrice");
+
     private final EntityManager em;
 
+    @Transactional
     public void save(Order order) {
         em.persist(order);
     }
 
+    /**
+     * 대량 저장시 영속성 컨텍스트가 계속 커지지 않도록 중간중간 insert를 보내고 비움
+     */
+    @Transactional
+    public void flushAndClear() {
+        em.flush();
+        em.clear();
+    }
+
     public Order findOne(Long id) {
         return em.find(Order.class, id);
     }
 
-    public List<Order> findByString(OrderSearch orderSearch) {
-        //language=JPAQL
-        String jpql = "select o From Order o join o.member m";
-        boolean isFirstCondition = true;
-//주문 상태 검색
-        if (orderSearch.getOrderStatus() != null) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
-            }
-            jpql += " o.status = :status";
-        }
-//회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
-            }
-            jpql += " m.name like :name";
-        }
-        TypedQuery<Order> query = em.createQuery(jpql, Order.class) .setMaxResults(1000); //최대 1000건
-        if (orderSearch.getOrderStatus() != null) {
-            query = query.setParameter("status", orderSearch.getOrderStatus());
+    /**
+     * 주문 검색 (Criteria API)
+     * - 값이 있는 조건만 where에 추가하고 값은 모두 파라미터로 바인딩
+     *   => 같은 조건 조합이면 항상 같은 JPQL이 만들어지므로 Hibernate 쿼리 플랜 캐시를 재사용 (조건 조합마다 플랜 1개)
+     * - 같이 조회할 연관관계는 fetchProfile (ToOne은 엔티티 그래프로 조인, 주문상품은 default_batch_fetch_size로 조회)
+     * - 정렬은 orderDate, totalPrice만 (예: sort=totalPrice,desc), 기본은 id desc
+     * - 다음 페이지 여부는 1건 더 조회해서 판단(Slice), orderSearch.count 이면 count 쿼리까지 실행(Page)
+     */
+    public Slice<Order> search(OrderSearch orderSearch, Pageable pageable, OrderFetchProfile fetchProfile) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> o = cq.from(Order.class);
+        Join<Order, Member> m = needsMemberJoin(orderSearch) ? o.join("member") : null;
+        Join<Order, Delivery> d = StringUtils.hasText(orderSearch.getCity()) ? o.join("delivery") : null;
+        cq.select(o)
+                .where(searchConditions(cb, cq, o, m, d, orderSearch))
+                .orderBy(searchOrders(cb, o, pageable.getSort()));
+
+        if (orderSearch.getMemberIds() != null && orderSearch.getMemberIds().isEmpty()) {
+            //이름에 해당하는 회원이 없음 -> 조회할 필요 없음
+            return orderSearch.isCount() ? new PageImpl<>(List.of(), pageable, 0) : new SliceImpl<>(List.of(), pageable, false);
         }
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
+        TypedQuery<Order> query = em.createQuery(cq)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1);
+        List<Order> orders = bindSearchParameters(query, orderSearch)
+                .setHint(FETCH_GRAPH, em.getEntityGraph(fetchProfile.getPageGraphName()))
+                .getResultList();
+
+        Slice<Order> result = toSlice(orders, orderSearch, pageable);
+        fetchProfile.initialize(result.getContent());
+        return result;
+    }
+
+    /**
+     * 주문 목록 화면용 검색 (조건, 정렬, 페이징은 search와 같음) - 화면에 보여줄 값만 DTO로, 쿼리 1번
+     * - 대표상품 = 주문의 첫번째 주문상품 : order_item_id가 가장 작은 주문상품만 조인 (서브쿼리)
+     *   -> 주문당 1줄이므로 DB에서 페이징
+     * - 엔티티를 반환하지 않으므로 화면을 그리는 동안 지연로딩(커넥션 사용)이 없음
+     */
+    public Slice<OrderListQueryDto> searchList(OrderSearch orderSearch, Pageable pageable) {
+        if (orderSearch.getMemberIds() != null && orderSearch.getMemberIds().isEmpty()) {
+            return orderSearch.isCount() ? new PageImpl<>(List.of(), pageable, 0) : new SliceImpl<>(List.of(), pageable, false);
         }
-        return query.getResultList();
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<OrderListQueryDto> cq = cb.createQuery(OrderListQueryDto.class);
+        Root<Order> o = cq.from(Order.class);
+        Join<Order, Member> m = o.join("member");
+        Join<Order, Delivery> d = StringUtils.hasText(orderSearch.getCity()) ? o.join("delivery") : null;
+        Join<Order, OrderItem> oi = o.join("orderItems");
+        Join<OrderItem, Item> i = oi.join("item");
+
+        Subquery<Long> firstOrderItem = cq.subquery(Long.class);
+        Root<OrderItem> first = firstOrderItem.from(OrderItem.class);
+        firstOrderItem.select(cb.min(first.get("id"))).where(cb.equal(first.get("order"), o));
+
+        List<Predicate> predicates = new ArrayList<>(List.of(searchConditions(cb, cq, o, m, d, orderSearch)));
+        predicates.add(cb.equal(oi.get("id"), firstOrderItem));
+        cq.select(cb.construct(OrderListQueryDto.class,
+                        o.get("id"), m.get("name"), i.get("name"), oi.get("orderPrice"), oi.get("count"),
+                        o.get("totalPrice"), o.get("status"), o.get("orderDate")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(searchOrders(cb, o, pageable.getSort()));
 
+        TypedQuery<OrderListQueryDto> query = em.createQuery(cq)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1);
+        return toSlice(bindSearchParameters(query, orderSearch).getResultList(), orderSearch, pageable);
     }
 
+    /**
+     * pageSize + 1건 조회한 결과 -> Slice (orderSearch.count 이면 count 쿼리까지 실행해서 Page)
+     */
+    private <T> Slice<T> toSlice(List<T> rows, OrderSearch orderSearch, Pageable pageable) {
+        int pageSize = pageable.getPageSize();
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = new ArrayList<>(rows.subList(0, pageSize));
+        }
+        if (!orderSearch.isCount()) {
+            return new SliceImpl<>(rows, pageable, hasNext);
+        }
+        return new PageImpl<>(rows, pageable, count(orderSearch));
+    }
+
+    /**
+     * 엔티티만 조회 (최대 1000건, 페치조인X -> V1, V2 지연로딩 예제용)
+     */
     public List<Order> findAllByString(OrderSearch orderSearch) {
-        //language=JPAQL
-        String jpql = "select o From Order o join o.member m";
-        boolean isFirstCondition = true;
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Order> cq = cb.createQuery(Order.class);
+        Root<Order> o = cq.from(Order.class);
+        Join<Order, Member> m = needsMemberJoin(orderSearch) ? o.join("member") : null;
+        Join<Order, Delivery> d = StringUtils.hasText(orderSearch.getCity()) ? o.join("delivery") : null;
+        cq.select(o).where(searchConditions(cb, cq, o, m, d, orderSearch));
+
+        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000건
+        return bindSearchParameters(query, orderSearch).getResultList();
+    }
+
+    /**
+     * count 쿼리는 조건에 필요한 조인만
+     */
+    private long count(OrderSearch orderSearch) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Order> o = cq.from(Order.class);
+        Join<Order, Member> m = needsMemberJoin(orderSearch) ? o.join("member") : null;
+        Join<Order, Delivery> d = StringUtils.hasText(orderSearch.getCity()) ? o.join("delivery") : null;
+        cq.select(cb.count(o)).where(searchConditions(cb, cq, o, m, d, orderSearch));
+
+        return bindSearchParameters(em.createQuery(cq), orderSearch).getSingleResult();
+    }
+
+    /**
+     * 정렬은 SORTABLE 속성만 허용 (모르는 속성은 무시), 마지막에 항상 id desc
+     */
+    private List<javax.persistence.criteria.Order> searchOrders(CriteriaBuilder cb, Root<Order> o, Sort sort) {
+        List<javax.persistence.criteria.Order> orders = new ArrayList<>();
+        for (Sort.Order sortOrder : sort) {
+            if (SORTABLE.contains(sortOrder.getProperty())) {
+                Path<?> path = o.get(sortOrder.getProperty());
+                orders.add(sortOrder.isAscending() ? cb.asc(path) : cb.desc(path));
+            }
+        }
+        orders.add(cb.desc(o.get("id")));
+        return orders;
+    }
+
+    private boolean needsMemberJoin(OrderSearch orderSearch) {
+        return orderSearch.getMemberIds() == null && StringUtils.hasText(orderSearch.getMemberName());
+    }
+
+    private Predicate[] searchConditions(CriteriaBuilder cb, CriteriaQuery<?> cq, Root<Order> o,
+                                         Join<Order, Member> m, Join<Order, Delivery> d, OrderSearch orderSearch) {
+        List<Predicate> predicates = new ArrayList<>();
         //주문 상태 검색
         if (orderSearch.getOrderStatus() != null) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
-            }
-            jpql += " o.status = :status";
-        }
-        //회원 이름 검색
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            if (isFirstCondition) {
-                jpql += " where";
-                isFirstCondition = false;
-            } else {
-                jpql += " and";
-            }
-            jpql += " m.name like :name";
+            predicates.add(cb.equal(o.get("status"), cb.parameter(OrderStatus.class, "status")));
+        }
+        //회원 이름 검색 (회원명 인덱스로 찾은 회원 id가 있으면 member 조인 없이 id로)
+        if (orderSearch.getMemberIds() != null) {
+            predicates.add(o.get("member").get("id").in(cb.parameter(Collection.class, "memberIds")));
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            predicates.add(cb.like(m.get("name"), cb.parameter(String.class, "name")));
+        }
+        //주문일 검색
+        if (orderSearch.getOrderDateFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(o.get("orderDate"), cb.parameter(LocalDateTime.class, "orderDateFrom")));
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            predicates.add(cb.lessThan(o.get("orderDate"), cb.parameter(LocalDateTime.class, "orderDateTo")));
+        }
+        //배송지 도시 검색
+        if (StringUtils.hasText(orderSearch.getCity())) {
+            predicates.add(cb.equal(d.get("address").get("city"), cb.parameter(String.class, "city")));
+        }
+        //주문상품 검색
+        if (orderSearch.getItemId() != null) {
+            Subquery<Long> items = cq.subquery(Long.class);
+            Root<OrderItem> oi = items.from(OrderItem.class);
+            items.select(oi.get("id"))
+                    .where(cb.equal(oi.get("order"), o),
+                            cb.equal(oi.get("item").get("id"), cb.parameter(Long.class, "itemId")));
+            predicates.add(cb.exists(items));
+        }
+        //주문 금액 검색 (orders.total_price 컬럼 -> 주문상품 서브쿼리X)
+        if (orderSearch.getMinTotalPrice() != null) {
+            predicates.add(cb.ge(o.get("totalPrice"), cb.parameter(Integer.class, "minTotalPrice")));
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            predicates.add(cb.le(o.get("totalPrice"), cb.parameter(Integer.class, "maxTotalPrice")));
         }
+        return predicates.toArray(new Predicate[0]);
+    }
 
-        TypedQuery<Order> query = em.createQuery(jpql, Order.class) .setMaxResults(1000); //최대 1000건
+    private <T> TypedQuery<T> bindSearchParameters(TypedQuery<T> query, OrderSearch orderSearch) {
         if (orderSearch.getOrderStatus() != null) {
-            query = query.setParameter("status", orderSearch.getOrderStatus());
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (orderSearch.getMemberIds() != null) {
+            query.setParameter("memberIds", orderSearch.getMemberIds());
+        } else if (StringUtils.hasText(orderSearch.getMemberName())) {
+            String name = orderSearch.getMemberName();
+            query.setParameter("name", orderSearch.isMemberNamePattern() ? name : "%" + name + "%");
+        }
+        if (orderSearch.getOrderDateFrom() != null) {
+            query.setParameter("orderDateFrom", orderSearch.getOrderDateFrom().atStartOfDay());
+        }
+        if (orderSearch.getOrderDateTo() != null) {
+            query.setParameter("orderDateTo", orderSearch.getOrderDateTo().plusDays(1).atStartOfDay());
+        }
+        if (StringUtils.hasText(orderSearch.getCity())) {
+            query.setParameter("city", orderSearch.getCity());
         }
-        if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
+        if (orderSearch.getItemId() != null) {
+            query.setParameter("itemId", orderSearch.getItemId());
         }
-        return query.getResultList();
+        if (orderSearch.getMinTotalPrice() != null) {
+            query.setParameter("minTotalPrice", orderSearch.getMinTotalPrice());
+        }
+        if (orderSearch.getMaxTotalPrice() != null) {
+            query.setParameter("maxTotalPrice", orderSearch.getMaxTotalPrice());
+        }
+        return query;
     }
 
-    public List<Order> findAllWithMemberDelivery() {
-        return em.createQuery(
-                "select o from Order o" +
-                        " join fetch o.member m" +
-                        " join fetch o.delivery d", Order.class
-        ).getResultList();
+    /**
+     * 전체 주문 (페이징X) - 엔티티 그래프의 연관관계를 모두 조인해서 한번에 조회
+     * - 컬렉션(orderItems)을 조인하면 주문이 주문상품 수만큼 중복되므로 distinct
+     *   (PASS_DISTINCT_THROUGH=false : DB에는 distinct를 보내지 않고 중복된 Order만 메모리에서 제거)
+     */
+    public List<Order> findAll(OrderFetchProfile fetchProfile) {
+        return em.createQuery("select distinct o from Order o", Order.class)
+                .setHint(QueryHints.HINT_PASS_DISTINCT_THROUGH, false)
+                .setHint(FETCH_GRAPH, em.getEntityGraph(fetchProfile.getGraphName()))
+                .getResultList();
+        /**
+         * jpql의 Distinct는 DB의 DISTINCT 명령어가 날아감
+         * => 그러나 전체로우가 같아야 제외가 되는데 현재 쿼리에서는 제외할 수 없기때문에 쿼리의 결과는 똑같음
+         * => 단 jpa에서 자체적으로 distinct가 있으면 Order를 가져올때 같은 값(reference가 같으면 = PK가 같으면) 제외
+         *
+         * jpql distinct 의 기능
+         * 1. 디비에 distinct명령어 나감 (PASS_DISTINCT_THROUGH=false 이면 생략 -> 어차피 제외되는 row가 없으므로)
+         * 2. 엔티티가 중복인 경우 걸러서 컬렉션에 담아줌
+         */
+    }
+
+    /**
+     * offset 페이징 - ToOne은 엔티티 그래프로 조인, 컬렉션은 default_batch_fetch_size로 IN 쿼리
+     */
+    public List<Order> findAll(OrderFetchProfile fetchProfile, int offset, int limit) {
+        return fetchPage(em.createQuery("select o from Order o order by o.id", Order.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit), fetchProfile);
     }
 
     public List<OrderSimpleQueryDto> findOrderDtos() {
         return em.createQuery(
-                "select new jpabook.jpashop.repository.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                "select new jpabook.jpashop.repository.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice)" +
                         " from Order o" +
                         " join o.member m" +
                         " join o.delivery d", OrderSimpleQueryDto.class
         ).getResultList();
     }
 
-    public List<Order> findAllWithItem() {
+    /**
+     * 회원별, 주문상태별 주문 수, 주문금액 합계, 주문수량 합계 (주문 집계 적재용)
+     */
+    public List<OrderSummaryQueryDto> summarizeByMemberAndStatus() {
         return em.createQuery(
-                "select distinct o from Order o" +
-                        " join fetch o.member m" +
-                        " join fetch o.delivery d" +
-                        " join fetch o.orderItems oi" +
-                        " join fetch oi.item i", Order.class)
-        .getResultList();
-        /**
-         * jpql의 Distinct는 DB의 DISTINCT 명령어가 날아감
-         * => 그러나 전체로우가 같아야 제외가 되는데 현재 쿼리에서는 제외할 수 없기때문에 쿼리의 결과는 똑같음
-         * => 단 jpa에서 자체적으로 distinct가 있으면 Order를 가져올때 같은 값(reference가 같으면 = PK가 같으면) 제외
-         *
-         * jpql distinct 의 기능
-         * 1. 디비에 distinct명령어 나감
-         * 2. 엔티티가 중복인 경우 걸러서 컬렉션에 담아줌
-         */
+                "select new jpabook.jpashop.repository.OrderSummaryQueryDto(" +
+                        " o.member.id, o.status, count(distinct o), sum(oi.orderPrice * oi.count), sum(oi.count))" +
+                        " from Order o" +
+                        " join o.orderItems oi" +
+                        " group by o.member.id, o.status", OrderSummaryQueryDto.class
+        ).getResultList();
     }
 
-    public List<Order> findAllWithMemberDelivery(int offset, int limit) {
-        return em.createQuery(
+    /**
+     * 키셋(seek) 페이징 - order_id 기준
+     * offset 페이징은 앞의 row를 모두 읽고 버려야하기 때문에 뒤 페이지로 갈수록 느려짐
+     * => 마지막으로 조회한 order_id 다음부터 PK 인덱스를 타고 바로 조회 (페이지 깊이와 무관하게 일정)
+     * 컬렉션(orderItems)은 기존처럼 default_batch_fetch_size로 IN 쿼리 조회
+     */
+    public List<Order> findAllAfter(Long lastOrderId, int limit, OrderFetchProfile fetchProfile) {
+        return fetchPage(em.createQuery(
                 "select o from Order o" +
-                        " join fetch o.member m" +
-                        " join fetch o.delivery d", Order.class)
-                .setFirstResult(offset)
-                .setMaxResults(limit)
+                        " where o.id > :lastOrderId" +
+                        " order by o.id", Order.class)
+                .setParameter("lastOrderId", lastOrderId == null ? 0L : lastOrderId)
+                .setMaxResults(limit), fetchProfile);
+    }
+
+    /**
+     * 키셋(seek) 페이징 - (orderDate, order_id) 기준
+     * orderDate가 같은 주문이 있을수 있기때문에 order_id를 같이 비교해야 누락/중복이 없음
+     * lastOrderDate가 null이면 첫 페이지
+     */
+    public List<Order> findAllAfter(LocalDateTime lastOrderDate, Long lastOrderId, int limit, OrderFetchProfile fetchProfile) {
+        if (lastOrderDate == null) {
+            return fetchPage(em.createQuery(
+                    "select o from Order o" +
+                            " order by o.orderDate, o.id", Order.class)
+                    .setMaxResults(limit), fetchProfile);
+        }
+        return fetchPage(em.createQuery(
+                "select o from Order o" +
+                        " where o.orderDate > :lastOrderDate" +
+                        " or (o.orderDate = :lastOrderDate and o.id > :lastOrderId)" +
+                        " order by o.orderDate, o.id", Order.class)
+                .setParameter("lastOrderDate", lastOrderDate)
+                .setParameter("lastOrderId", lastOrderId)
+                .setMaxResults(limit), fetchProfile);
+    }
+
+    /**
+     * 페이징 쿼리는 ToOne 그래프만 조인하고 나머지(주문상품)는 batch fetch로 초기화
+     */
+    private List<Order> fetchPage(TypedQuery<Order> query, OrderFetchProfile fetchProfile) {
+        List<Order> orders = query
+                .setHint(FETCH_GRAPH, em.getEntityGraph(fetchProfile.getPageGraphName()))
                 .getResultList();
+        fetchProfile.initialize(orders);
+        return orders;
     }
 }
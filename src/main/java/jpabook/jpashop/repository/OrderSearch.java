@@ -4,9 +4,34 @@ import jpabook.jpashop.domain.OrderStatus;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Getter @Setter
 public class OrderSearch {
     private String memberName;
     private OrderStatus orderStatus;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateFrom; //주문일 시작 (포함)
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate orderDateTo;   //주문일 끝 (포함)
+
+    private Long itemId;             //이 상품이 포함된 주문
+    private String city;             //배송지 도시
+    private Integer minTotalPrice;
+    private Integer maxTotalPrice;
+
+    private boolean count;           //전체 건수도 조회 (count 쿼리가 한번 더 실행됨)
+
+    private List<Long> memberIds;    //회원명 인덱스로 미리 찾은 회원 id (있으면 회원명 like 대신 사용)
+
+    /**
+     * 회원명에 와일드카드(%, _)를 직접 넣었으면 like 패턴 그대로, 아니면 포함 검색
+     */
+    public boolean isMemberNamePattern() {
+        return memberName != null && (memberName.contains("%") || memberName.contains("_"));
+    }
 }
@@ -0,0 +1,21 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+@Data
+public class OrderSummaryQueryDto {
+    private Long memberId;
+    private OrderStatus status;
+    private long orderCount;
+    private long totalPrice;
+    private long itemCount;
+
+    public OrderSummaryQueryDto(Long memberId, OrderStatus status, Long orderCount, Long totalPrice, Long itemCount) {
+        this.memberId = memberId;
+        this.status = status;
+        this.orderCount = orderCount;
+        this.totalPrice = totalPrice;
+        this.itemCount = itemCount;
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OutboxEvent;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.LockOptions;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+    private final EntityManager em;
+
+    public void save(OutboxEvent event) {
+        em.persist(event);
+    }
+
+    /**
+     * 아직 보내지 않은 이벤트를 id 순서로 limit건 잠금 (select ... for update skip locked)
+     * - 다른 relay가 잠근 행은 기다리지 않고 건너뜀 -> relay 여러개가 서로 다른 이벤트를 나눠서 처리
+     * - skip locked를 지원하지 않는 DB(H2)에서는 for update (다른 relay를 기다림)
+     */
+    public List<OutboxEvent> lockNext(int limit) {
+        return em.createQuery("select e from OutboxEvent e order by e.id", OutboxEvent.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint("javax.persistence.lock.timeout", LockOptions.SKIP_LOCKED)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public int delete(List<Long> ids) {
+        return em.createQuery("delete from OutboxEvent e where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    public long count() {
+        return em.createQuery("select count(e) from OutboxEvent e", Long.class).getSingleResult();
+    }
+}
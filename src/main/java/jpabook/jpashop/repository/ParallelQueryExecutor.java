@@ -0,0 +1,117 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.config.QueryCounter;
+import jpabook.jpashop.config.ReadWriteRoutingDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 조회 쿼리를 병렬로 실행하는 스레드풀
+ * - EntityManager는 스레드에 안전하지 않기때문에 작업마다 읽기전용 EntityManager(커넥션)를 따로 만들어서 사용
+ * - 풀 크기로 동시 실행 수를 제한 (HikariCP maximum-pool-size 보다 크거나 같으면 maximum-pool-size - 1로 줄임)
+ * - 큐가 가득 차면 호출한 스레드에서 실행 (CallerRunsPolicy)
+ * - 트랜잭션 밖(auto commit)에서 실행되므로 호출한 쪽 트랜잭션에서 아직 커밋되지 않은 데이터는 보이지 않음
+ * - 반드시 트랜잭션 밖에서 호출 : 호출한 스레드가 커넥션을 잡은채로 작업 스레드의 커넥션을 기다리면
+ *   동시 요청 수가 (커넥션 풀 - 작업 스레드 수)를 넘는 순간 모두 커넥션 타임아웃까지 대기 (풀 교착)
+ */
+@Slf4j
+@Component
+public class ParallelQueryExecutor {
+    private final EntityManagerFactory emf;
+    private final ThreadPoolExecutor executor;
+
+    public ParallelQueryExecutor(EntityManagerFactory emf,
+                                 @Value("${jpashop.query-executor.pool-size:4}") int poolSize,
+                                 @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConnections) {
+        this.emf = emf;
+        if (poolSize >= maxConnections) {
+            //호출한 요청도 커넥션을 하나 가지고 있으므로 모두 병렬 조회에 쓰면 다른 요청이 커넥션을 못얻음
+            log.warn("병렬 조회 풀 크기({})는 커넥션 풀 크기({})보다 작아야 함 -> {}로 줄임", poolSize, maxConnections, maxConnections - 1);
+            poolSize = Math.max(1, maxConnections - 1);
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(poolSize * 16),
+                r -> {
+                    Thread thread = new Thread(r, "query-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public int getPoolSize() {
+        return executor.getMaximumPoolSize();
+    }
+
+    /**
+     * 쿼리들을 병렬로 실행하고 넘겨준 순서 그대로 결과를 반환
+     */
+    public <T> List<T> invokeAll(List<Function<EntityManager, T>> queries) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("병렬 조회는 트랜잭션 밖에서 호출해야 합니다. (@Transactional(propagation = NOT_SUPPORTED))");
+        }
+        boolean readOnly = ReadWriteRoutingDataSource.isReadOnly(); //읽기전용 트랜잭션에서 호출했으면 병렬 조회도 복제본으로
+        List<Future<T>> futures = new ArrayList<>(queries.size());
+        for (Function<EntityManager, T> query : queries) {
+            futures.add(executor.submit(QueryCounter.propagate(() -> execute(query, readOnly)))); //SQL 통계는 요청 스레드 쪽에 기록
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("병렬 조회가 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * 호출한 스레드에서 읽기전용 EntityManager를 따로 만들어서 실행하고 바로 닫음 (커넥션을 잡고있지 않음)
+     * 트랜잭션 밖에서는 공유 EntityManager가 메서드가 끝날때까지 커넥션을 잡고 있으므로 병렬 조회 전 조회에 사용
+     */
+    public <T> T execute(Function<EntityManager, T> query) {
+        return execute(query, ReadWriteRoutingDataSource.isReadOnly());
+    }
+
+    private <T> T execute(Function<EntityManager, T> query, boolean readOnly) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.unwrap(Session.class).setDefaultReadOnly(true);
+            return readOnly ? ReadWriteRoutingDataSource.readOnly(() -> query.apply(em)) : query.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 플랫 데이터(OrderFlatDto) -> OrderQueryDto(V5와 같은 스펙)로 조립
+ * - row가 order_id 순으로 정렬되어 있다는 전제로 한번만 순회함
+ * - order_id가 바뀌는 시점에 이전 주문이 완성되므로 바로 넘겨줄수 있음 (전체 결과를 메모리에 들고있지 않음)
+ */
+public final class OrderQueryAssembler {
+
+    private OrderQueryAssembler() {
+    }
+
+    public static List<OrderQueryDto> assemble(List<OrderFlatDto> rows) {
+        List<OrderQueryDto> result = new ArrayList<>();
+        forEachOrder(rows.iterator(), result::add);
+        return result;
+    }
+
+    public static void forEachOrder(Iterator<OrderFlatDto> rows, Consumer<OrderQueryDto> action) {
+        OrderQueryDto current = null;
+        long currentOrderId = 0;
+        while (rows.hasNext()) {
+            OrderFlatDto row = rows.next();
+            long orderId = row.getOrderId();
+            if (current == null || orderId != currentOrderId) {
+                if (current != null) {
+                    action.accept(current);
+                }
+                current = new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(), row.getOrderStatus(), row.getAddress(), row.getTotalPrice());
+                current.setOrderItems(new ArrayList<>());
+                currentOrderId = orderId;
+            }
+            current.getOrderItems().add(new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount()));
+        }
+        if (current != null) {
+            action.accept(current);
+        }
+    }
+}
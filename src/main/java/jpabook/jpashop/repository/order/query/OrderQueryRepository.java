@@ -1,17 +1,37 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.config.ReadWriteRoutingDataSource;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.ParallelQueryExecutor;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.IntegerType;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.LongType;
+import org.hibernate.type.StringType;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
+@Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderQueryRepository {
+    private static final int IN_CHUNK_SIZE = 128; //2의 제곱 -> in_clause_parameter_padding으로 채울 필요 없음
+
     private final EntityManager em;
+    private final ParallelQueryExecutor parallelQueryExecutor;
 
     public List<OrderQueryDto> findOrderQueryDtos() {
         List<OrderQueryDto> result = findOrders();
@@ -23,41 +43,107 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /**
+     * V4와 같은 모양(주문마다 주문상품 조회)이지만 주문별 조회를 ParallelQueryExecutor로 동시에 실행
+     * - 조회마다 읽기전용 EntityManager(커넥션)를 따로 사용, 동시 실행 수는 실행기 풀 크기로 제한
+     * - 응답시간 ≈ (주문 수 / 풀 크기) * 조회 1번 시간 -> 주문 수가 풀 크기 이하면 가장 느린 조회 1번
+     * - 결과는 주문 순서 그대로, SQL 수는 V4와 같음(1 + N) -> IN 쿼리로 묶을수 없는 주문별 조회일때 사용
+     * - 트랜잭션 밖에서 실행 (NOT_SUPPORTED) : 호출한 스레드가 커넥션을 잡은채로 작업 스레드의 커넥션을 기다리면
+     *   동시 요청이 많을때 서로 커넥션을 기다리다 멈춤 -> 주문 조회도 따로 만든 EntityManager로 하고 바로 반환
+     *   (주문 조회와 주문상품 조회는 같은 스냅샷이 아님, 모두 복제본으로)
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<OrderQueryDto> findOrderQueryDtos_parallel() {
+        return ReadWriteRoutingDataSource.readOnly(() -> {
+            List<OrderQueryDto> result = parallelQueryExecutor.execute(this::findOrders);
+
+            List<List<OrderItemQueryDto>> orderItems = parallelQueryExecutor.invokeAll(result.stream()
+                    .map(o -> (Function<EntityManager, List<OrderItemQueryDto>>) orderEm -> findOrderItems(orderEm, o.getOrderId()))
+                    .collect(Collectors.toList()));
+
+            for (int i = 0; i < result.size(); i++) {
+                result.get(i).setOrderItems(orderItems.get(i));
+            }
+            return result;
+        });
+    }
+
     public List<OrderQueryDto> findAllByDto_optimization() {
         List<OrderQueryDto> result = findOrders();
 
-        List<Long> orderIds = toOrderIds(result);
+        long[] orderIds = toOrderIds(result);
 
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(orderIds);
+        List<OrderItemQueryDto>[] orderItems = findOrderItems(orderIds);
 
-        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        for (int i = 0; i < result.size(); i++) {
+            result.get(i).setOrderItems(orderItems[i]);
+        }
 
         return result;
     }
 
-    private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+    /**
+     * 주문상품을 IN 쿼리로 조회 (주문ID 개수가 많을때 대비)
+     * - IN_CHUNK_SIZE 개씩 나눠서 조회 (DB 파라미터 개수 제한)
+     * - 파라미터 개수 맞추기는 hibernate.query.in_clause_parameter_padding 하나만 사용 (직접 채우지 않음)
+     *   => 마지막 묶음도 2의 제곱 개수로 채워지므로 SQL 모양이 IN_CHUNK_SIZE 이하 2의 제곱 개수만큼으로 제한됨 (실행계획 캐시 재사용)
+     * - 묶음이 여러개여도 호출한 트랜잭션(EntityManager)에서 차례로 조회 -> 주문 조회와 같은 스냅샷, 커넥션 1개
+     * - orderIds는 오름차순 정렬되어 있어야함 -> 이진탐색으로 주문 위치(인덱스)를 찾아서 담음 (Long 박싱/Map 없음)
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<OrderItemQueryDto>[] findOrderItems(long[] orderIds) {
+        List<OrderItemQueryDto>[] orderItems = new List[orderIds.length];
+        for (int i = 0; i < orderIds.length; i++) {
+            orderItems[i] = new ArrayList<>();
+        }
+        if (orderIds.length == 0) {
+            return orderItems;
+        }
+
+        for (List<Long> chunk : toChunks(orderIds)) {
+            for (OrderItemQueryDto orderItem : findOrderItems(em, chunk)) {
+                orderItems[Arrays.binarySearch(orderIds, orderItem.getOrderId())].add(orderItem);
+            }
+        }
+        return orderItems;
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(EntityManager em, List<Long> orderIds) {
+        return em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                                 " from OrderItem oi " +
                                 " join oi.item i " +
                                 " where oi.order.id in :orderIds", OrderItemQueryDto.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
+    }
 
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
-                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId));
-        return orderItemMap;
+    private List<List<Long>> toChunks(long[] orderIds) {
+        List<List<Long>> chunks = new ArrayList<>((orderIds.length + IN_CHUNK_SIZE - 1) / IN_CHUNK_SIZE);
+        for (int from = 0; from < orderIds.length; from += IN_CHUNK_SIZE) {
+            int to = Math.min(from + IN_CHUNK_SIZE, orderIds.length);
+            List<Long> chunk = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                chunk.add(orderIds[i]);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
     }
 
-    private List<Long> toOrderIds(List<OrderQueryDto> result) {
-        List<Long> orderIds = result
-                                .stream()
-                                .map(o -> o.getOrderId())
-                                .collect(Collectors.toList());
+    private long[] toOrderIds(List<OrderQueryDto> result) {
+        long[] orderIds = new long[result.size()];
+        for (int i = 0; i < orderIds.length; i++) {
+            orderIds[i] = result.get(i).getOrderId();
+        }
         return orderIds;
     }
 
     private List<OrderItemQueryDto> findOrderItems(Long orderId) {
+        return findOrderItems(em, orderId);
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(EntityManager em, Long orderId) {
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                         " from OrderItem oi " +
@@ -68,18 +154,23 @@ public class OrderQueryRepository {
     }
 
     private List<OrderQueryDto> findOrders() {
+        return findOrders(em);
+    }
+
+    private List<OrderQueryDto> findOrders(EntityManager em) {
         return em.createQuery(
-                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address) " +
+                        "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice) " +
                                 " from Order o " +
                                 " join o.member m " +
-                                " join o.delivery d ", OrderQueryDto.class)
+                                " join o.delivery d " +
+                                " order by o.id", OrderQueryDto.class)
                 .getResultList();
     }
 
     public List<OrderFlatDto> findAllByDto_flat() {
         return em.createQuery(
                 "select new " +
-                        " jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count )" +
+                        " jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, i.name, oi.orderPrice, oi.count )" +
                         " from Order o " +
                         " join o.member m " +
                         " join o.delivery d " +
@@ -87,4 +178,67 @@ public class OrderQueryRepository {
                         " join oi.item i" , OrderFlatDto.class)
                 .getResultList();
     }
+
+    /**
+     * 플랫 조회 + 주문 기준 페이징
+     * - 주문ID만 먼저 페이징하는 서브쿼리(인라인 뷰)에 조인 -> row(주문상품)가 아니라 주문 기준으로 페이징됨
+     * - JPQL은 서브쿼리에 limit을 쓸수 없어서 네이티브 SQL 사용 (쿼리는 여전히 1번)
+     * - order_id 순 정렬이므로 OrderQueryAssembler로 한번 순회해서 V5 스펙으로 조립 가능
+     */
+    @SuppressWarnings("unchecked")
+    public List<OrderFlatDto> findAllByDto_flat(int offset, int limit) {
+        List<Object[]> rows = em.createNativeQuery(
+                "select o.order_id, m.name as member_name, o.order_date, o.status, o.total_price," +
+                        " d.city, d.street, d.zipcode," +
+                        " i.name as item_name, oi.order_price, oi.count" +
+                        " from (select order_id from orders order by order_id limit :limit offset :offset) p" +
+                        " join orders o on o.order_id = p.order_id" +
+                        " join member m on m.id = o.member_id" +
+                        " join delivery d on d.delivery_id = o.delivery_id" +
+                        " join order_item oi on oi.order_id = o.order_id" +
+                        " join item i on i.item_id = oi.item_id" +
+                        " order by o.order_id")
+                .setParameter("offset", offset)
+                .setParameter("limit", limit)
+                .unwrap(NativeQuery.class)
+                .addScalar("order_id", LongType.INSTANCE)
+                .addScalar("member_name", StringType.INSTANCE)
+                .addScalar("order_date", LocalDateTimeType.INSTANCE)
+                .addScalar("status", StringType.INSTANCE)
+                .addScalar("total_price", IntegerType.INSTANCE)
+                .addScalar("city", StringType.INSTANCE)
+                .addScalar("street", StringType.INSTANCE)
+                .addScalar("zipcode", StringType.INSTANCE)
+                .addScalar("item_name", StringType.INSTANCE)
+                .addScalar("order_price", IntegerType.INSTANCE)
+                .addScalar("count", IntegerType.INSTANCE)
+                .getResultList();
+
+        return rows.stream()
+                .map(r -> new OrderFlatDto((Long) r[0], (String) r[1], (LocalDateTime) r[2], OrderStatus.valueOf((String) r[3]),
+                        new Address((String) r[5], (String) r[6], (String) r[7]), (Integer) r[4],
+                        (String) r[8], (Integer) r[9], (Integer) r[10]))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 전체 주문 내보내기용 스트림 조회 (반드시 트랜잭션 안에서 사용하고 close 할것)
+     * - forward-only 커서(ScrollableResults)로 fetchSize 만큼씩 DB에서 가져옴 -> 결과 리스트를 만들지 않음
+     * - DTO 조회라 영속성 컨텍스트에 엔티티가 쌓이지 않음
+     * - order_id 순으로 정렬해서 OrderQueryAssembler로 주문 단위 조립이 가능
+     */
+    public Stream<OrderFlatDto> streamAllByDto_flat(int fetchSize) {
+        return em.createQuery(
+                "select new " +
+                        " jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, o.totalPrice, i.name, oi.orderPrice, oi.count )" +
+                        " from Order o " +
+                        " join o.member m " +
+                        " join o.delivery d " +
+                        " join o.orderItems oi " +
+                        " join oi.item i" +
+                        " order by o.id", OrderFlatDto.class)
+                .setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream();
+    }
 }
@@ -0,0 +1,37 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import java.util.List;
+
+/**
+ * 대량주문 한건 (회원 + 주문상품 여러개)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderDto {
+    @NotNull
+    private Long memberId;
+
+    @NotEmpty
+    @Valid
+    private List<OrderLine> items;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class OrderLine {
+        @NotNull
+        private Long itemId;
+
+        @Positive
+        private int count;
+    }
+}
@@ -0,0 +1,13 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 카테고리 추가, 이동시 CategoryService가 발행 -> 커밋된 뒤에 카테고리 트리 스냅샷을 다시 만듦
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private final Long categoryId;
+}
@@ -0,0 +1,134 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.CategoryTree;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+
+/**
+ * 카테고리 트리는 메모리 스냅샷(CategoryTree)에서 조회 - 상위/하위 카테고리를 지연로딩으로 한단계씩 읽지 않음
+ * - 시작할때 한번 적재, 카테고리가 추가/이동되면 커밋된 뒤에 전체를 다시 읽어서 새 스냅샷으로 교체
+ *   (카테고리는 자주 바뀌지 않고 수가 적다는 전제)
+ * - 스냅샷은 애플리케이션 인스턴스마다 따로 가지고 있음 -> 스냅샷에 없는 카테고리는 DB(재귀 CTE)로 조회
+ */
+@Slf4j
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Object refreshLock = new Object();
+    private volatile CategoryTree tree = CategoryTree.EMPTY;
+
+    @Transactional
+    public Long create(String name, Long parentId) {
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            findCategory(parentId).addChildCategory(category);
+        }
+        categoryRepository.save(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(category.getId()));
+        return category.getId();
+    }
+
+    /**
+     * 카테고리 이동 (parentId가 null이면 최상위로)
+     * - 순환 검사는 스냅샷이 아니라 DB에서 : 이동할 카테고리와 새 부모부터 최상위까지 행을 잠그면서 올라감
+     *   (스냅샷은 늦게 갱신되거나 다른 인스턴스의 변경이 없을수 있음, 잠근 경로는 커밋까지 다른 이동이 바꾸지 못함)
+     * - 순환이 생기면 재귀 CTE(findItemIdsInSubtree)가 끝나지 않으므로 반드시 막아야 함
+     */
+    @Transactional
+    public void move(Long categoryId, Long parentId) {
+        Category category = findCategory(categoryId);
+        if (parentId != null) {
+            categoryRepository.lockParentId(categoryId);
+            for (Long ancestorId = parentId; ancestorId != null; ancestorId = categoryRepository.lockParentId(ancestorId)) {
+                if (ancestorId.equals(categoryId)) {
+                    throw new IllegalArgumentException("자기 자신이나 하위 카테고리로 이동할 수 없습니다.");
+                }
+            }
+        }
+        if (category.getParent() != null) {
+            category.getParent().getChild().remove(category);
+        }
+        if (parentId == null) {
+            category.setParent(null);
+        } else {
+            findCategory(parentId).addChildCategory(category);
+        }
+        eventPublisher.publishEvent(new CategoryChangedEvent(categoryId));
+    }
+
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) {
+            throw new IllegalArgumentException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        findCategory(categoryId).getItems().add(item);
+    }
+
+    public CategoryTree tree() {
+        return tree;
+    }
+
+    /**
+     * 카테고리와 모든 하위 카테고리에 속한 상품 (쿼리 1번)
+     */
+    public List<Item> findItemsInSubtree(Long categoryId) {
+        CategoryTree current = tree;
+        if (current.contains(categoryId)) {
+            return categoryRepository.findItemsByCategoryIds(current.getSubtreeIds(categoryId));
+        }
+        List<Long> itemIds = categoryRepository.findItemIdsInSubtree(categoryId);
+        return itemIds.isEmpty() ? List.of() : itemRepository.findAllById(itemIds);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadTree() {
+        refreshTree();
+    }
+
+    /**
+     * 커밋된 뒤에 실행되므로 새 트랜잭션에서 다시 읽음
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void on(CategoryChangedEvent event) {
+        refreshTree();
+    }
+
+    /**
+     * 동시에 여러번 변경되어도 나중에 읽은 스냅샷이 나중에 교체되도록 순서대로 실행
+     */
+    private void refreshTree() {
+        synchronized (refreshLock) {
+            tree = CategoryTree.of(categoryRepository.findAllIdParentIdAndName());
+        }
+        log.debug("카테고리 트리 갱신 - {}개", tree.size());
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("존재하지 않는 카테고리입니다. categoryId=" + categoryId);
+        }
+        return category;
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.OutboxEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 이벤트를 파일에 한줄씩(JSON lines) 추가 - 묶음마다 한번 쓰고 fsync 한 뒤에 반환 (반환되면 아웃박스에서 삭제되므로)
+ */
+@Component
+@ConditionalOnProperty(name = "jpashop.outbox.sink", havingValue = "file")
+public class FileOrderEventSink implements OrderEventSink {
+    private final Path file;
+    private final ObjectMapper objectMapper;
+
+    public FileOrderEventSink(@Value("${jpashop.outbox.file:order-events.jsonl}") Path file, ObjectMapper objectMapper) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void publish(List<OutboxEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (OutboxEvent event : events) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("id", event.getId());
+                line.put("type", event.getType());
+                line.put("createdAt", event.getCreatedAt());
+                line.put("payload", objectMapper.readTree(event.getPayload()));
+                lines.append(objectMapper.writeValueAsString(line)).append('\n');
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 이벤트를 파일에 쓰지 못했습니다. file=" + file, e);
+        }
+    }
+}
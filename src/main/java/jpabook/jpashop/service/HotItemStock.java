@@ -0,0 +1,269 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 인기상품(한 상품에 주문이 몰리는 경우) 재고 버킷
+ * - DB에서 refillSize 만큼 재고를 한번에 가져와서(짧은 별도 트랜잭션으로 바로 커밋) 메모리 버킷에 채움 (DB 재고가 적으면 남은 만큼)
+ *   -> 주문 트랜잭션이 DB row 락을 잡고 있지 않고, 가져온 재고는 바로 다른 주문도 사용할수 있음
+ * - 주문은 스레드별 버킷에서 CAS로 차감 -> DB row 락은 refillSize 주문에 한번만 잡힘, 코어 수만큼 버킷을 나눠서 경합 감소
+ * - 채우기는 상품당 한 스레드만 (별도 트랜잭션이라 커넥션이 하나 더 필요)
+ *   다른 스레드가 채우는 중이면 기다리지 않고 주문 트랜잭션에서 DB 재고를 바로 차감
+ *   (DB에도 없을때만 채우기가 끝나길 기다림 - 커넥션 풀이 모자라 채우는 스레드가 커넥션을 기다릴수 있으므로 대기 시간 제한)
+ * - DB의 stock_quantity는 "아직 버킷으로 가져가지 않은 재고" 이므로 실제 판매가능 수량보다 작게 보일수 있음
+ * - 남은 버킷 재고는 unmarkHot, 애플리케이션 종료시 DB로 돌려줌 (unmarkHot은 판매가 끝난 뒤에 호출할것)
+ */
+@Slf4j
+@Component
+public class HotItemStock {
+    private static final int PADDING = 16; //버킷 하나당 64바이트(캐시라인) -> false sharing 방지
+    private static final long REFILL_WAIT_MILLIS = 1000;
+
+    private final ItemRepository itemRepository;
+    private final TransactionTemplate requiresNew;
+    private final int stripes;
+    private final int refillSize;
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public HotItemStock(ItemRepository itemRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${jpashop.stock.hot-item-ids:}") Set<Long> hotItemIds,
+                        @Value("${jpashop.stock.hot-refill-size:100}") int refillSize) {
+        this.itemRepository = itemRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stripes = Runtime.getRuntime().availableProcessors();
+        this.refillSize = refillSize;
+        hotItemIds.forEach(this::markHot);
+    }
+
+    public boolean isHot(Long itemId) {
+        return buckets.containsKey(itemId);
+    }
+
+    public void markHot(Long itemId) {
+        buckets.putIfAbsent(itemId, new Bucket(stripes));
+    }
+
+    public void unmarkHot(Long itemId) {
+        Bucket bucket = buckets.remove(itemId);
+        if (bucket != null) {
+            returnToDb(itemId, drain(bucket.stock));
+        }
+    }
+
+    /**
+     * 재고를 차감하고 버킷(메모리)에서 가져왔는지를 반환
+     * - true : 버킷에서 차감 (채우기로 DB에서 가져온 재고도 이미 커밋되었으므로 버킷 재고)
+     *   -> 주문이 롤백되면 release로 버킷에 돌려줘야 함
+     * - false : 주문 트랜잭션에서 DB 재고를 직접 차감 -> 주문이 롤백되면 DB update도 같이 롤백되므로 돌려주면 안됨 (두번 복구됨)
+     */
+    public boolean reserve(Long itemId, int count) {
+        Bucket bucket = buckets.get(itemId);
+        if (bucket == null) {
+            throw new IllegalStateException("인기상품으로 등록되지 않은 상품입니다. itemId=" + itemId);
+        }
+        int home = (int) (Thread.currentThread().getId() % stripes);
+        if (take(bucket.stock, home, count)) {
+            return true;
+        }
+        //이 트랜잭션이 이미 row 락을 잡고 있으면 채우지 않음 (채우는 트랜잭션이 이 트랜잭션의 커밋을 기다리게 됨)
+        if (holdsRowLock(bucket)) {
+            if (takeFromDb(itemId, count)) {
+                return false;
+            }
+            throw new NotEnoughStockException("need more stock");
+        }
+        if (bucket.refillLock.tryLock()) {
+            return refillAndUnlock(itemId, bucket, home, count);
+        }
+        //다른 스레드가 채우는 중 -> 기다리지 않고 주문 트랜잭션에서 DB 재고를 직접 차감
+        if (takeFromDb(itemId, count)) {
+            markRowLocked(bucket);
+            return false;
+        }
+        //DB에 주문 수량만큼 없으면 채우기가 끝난 뒤에 (DB에 남은 재고 + 버킷) 다시 확인
+        //채우는 스레드가 커넥션을 기다리는 경우(풀 부족) 서로 기다리지 않도록 대기 시간 제한
+        try {
+            if (bucket.refillLock.tryLock(REFILL_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return refillAndUnlock(itemId, bucket, home, count);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throw new NotEnoughStockException("need more stock");
+    }
+
+    /**
+     * 주문 취소/롤백시 버킷으로 돌려줌 (이미 인기상품에서 해제되었으면 DB로)
+     */
+    public void release(Long itemId, int count) {
+        Bucket bucket = buckets.get(itemId);
+        if (bucket == null) {
+            returnToDb(itemId, count);
+            return;
+        }
+        bucket.stock.addAndGet((int) (Thread.currentThread().getId() % stripes) * PADDING, count);
+    }
+
+    /**
+     * 버킷에서 차감 - 한 버킷에 없으면 여러 버킷에서 필요한 만큼만 모아서 (버킷을 비우지 않음)
+     */
+    private boolean take(AtomicIntegerArray stock, int home, int count) {
+        for (int i = 0; i < stripes; i++) {
+            if (tryTake(stock, (home + i) % stripes, count)) {
+                return true;
+            }
+        }
+        int taken = 0;
+        for (int i = 0; i < stripes && taken < count; i++) {
+            taken += takeUpTo(stock, (home + i) % stripes, count - taken);
+        }
+        if (taken < count) {
+            stock.addAndGet(home * PADDING, taken);
+            return false;
+        }
+        return true;
+    }
+
+    private boolean tryTake(AtomicIntegerArray stock, int stripe, int count) {
+        int index = stripe * PADDING;
+        while (true) {
+            int available = stock.get(index);
+            if (available < count) {
+                return false;
+            }
+            if (stock.compareAndSet(index, available, available - count)) {
+                return true;
+            }
+        }
+    }
+
+    private int takeUpTo(AtomicIntegerArray stock, int stripe, int count) {
+        int index = stripe * PADDING;
+        while (true) {
+            int available = stock.get(index);
+            int taken = Math.min(available, count);
+            if (taken <= 0 || stock.compareAndSet(index, available, available - taken)) {
+                return Math.max(taken, 0);
+            }
+        }
+    }
+
+    /**
+     * DB에서 refillSize 만큼 (DB 재고가 적으면 남은 만큼) 가져와서 버킷을 채운 뒤 주문 수량을 차감
+     * 별도 트랜잭션으로 커밋한 뒤 바로 버킷에 넣음
+     * -> 주문이 롤백되어도 가져온 재고는 버킷에 있으므로 주문 수량만 release로 돌려주면 됨
+     */
+    private boolean refillAndUnlock(Long itemId, Bucket bucket, int home, int count) {
+        try {
+            if (take(bucket.stock, home, count)) { //다른 스레드가 먼저 채웠으면
+                return true;
+            }
+            //품절이면 커넥션을 하나 더 쓰지 않고 끝냄 (주문 트랜잭션의 커넥션으로 확인)
+            if (itemRepository.findStockQuantity(itemId) > 0) {
+                int amount = takeFromDbAndCommit(itemId, Math.max(refillSize, count));
+                if (amount >= count) {
+                    bucket.stock.addAndGet(home * PADDING, amount - count); //주문 수량은 버킷에 넣기 전에 뺌
+                    return true;
+                }
+                bucket.stock.addAndGet(home * PADDING, amount); //DB에 남은 재고로 부족하면 버킷에 흩어진 재고와 합쳐서
+            }
+        } finally {
+            bucket.refillLock.unlock();
+        }
+        if (take(bucket.stock, home, count)) {
+            return true;
+        }
+        throw new NotEnoughStockException("need more stock");
+    }
+
+    /**
+     * @return DB에서 가져온 수량 (조건부 update가 실패하면 = 그 사이에 주문이 DB에서 직접 차감, 남은 재고를 다시 읽음)
+     */
+    private int takeFromDbAndCommit(Long itemId, int amount) {
+        return requiresNew.execute(status -> {
+            while (true) {
+                int available = Math.min(itemRepository.findStockQuantity(itemId), amount);
+                if (available <= 0 || takeFromDb(itemId, available)) {
+                    return Math.max(available, 0);
+                }
+            }
+        });
+    }
+
+    private boolean takeFromDb(Long itemId, int amount) {
+        return itemRepository.removeStock(itemId, amount) > 0;
+    }
+
+    private boolean holdsRowLock(Bucket bucket) {
+        return TransactionSynchronizationManager.hasResource(bucket);
+    }
+
+    /**
+     * 주문 트랜잭션에서 DB 재고를 직접 차감했으면 트랜잭션이 끝날때까지 표시
+     */
+    private void markRowLocked(Bucket bucket) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || holdsRowLock(bucket)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(bucket, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(bucket);
+            }
+        });
+    }
+
+    private int drain(AtomicIntegerArray stock) {
+        int total = 0;
+        for (int i = 0; i < stripes; i++) {
+            total += stock.getAndSet(i * PADDING, 0);
+        }
+        return total;
+    }
+
+    private void returnToDb(Long itemId, int amount) {
+        if (amount > 0) {
+            requiresNew.executeWithoutResult(status -> itemRepository.addStock(itemId, amount));
+        }
+    }
+
+    @PreDestroy
+    public void returnAll() {
+        buckets.forEach((itemId, bucket) -> {
+            try {
+                returnToDb(itemId, drain(bucket.stock));
+            } catch (RuntimeException e) {
+                log.error("인기상품 재고 반환 실패 itemId={}", itemId, e);
+            }
+        });
+    }
+
+    private static class Bucket {
+        private final AtomicIntegerArray stock;
+        private final ReentrantLock refillLock = new ReentrantLock();
+
+        Bucket(int stripes) {
+            this.stock = new AtomicIntegerArray(stripes * PADDING);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemListQueryDto;
 import jpabook.jpashop.repository.ItemRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -24,6 +25,10 @@ public class ItemService {
         return itemRepository.findAll();
     }
 
+    public List<ItemListQueryDto> findItemList() {
+        return itemRepository.findAllForList();
+    }
+
     public Item findOne(Long itemId) {
         return itemRepository.findOne(itemId);
     }
@@ -0,0 +1,24 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 이벤트를 로그로 남김 (기본값, 로컬/테스트용)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LogOrderEventSink implements OrderEventSink {
+
+    @Override
+    public void publish(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            log.info("주문 이벤트 id={} type={} orderId={} payload={}", event.getId(), event.getType(), event.getOrderId(), event.getPayload());
+        }
+    }
+}
@@ -1,31 +1,47 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberOptionQueryDto;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.MemberRepositoryOld;
+import jpabook.jpashop.repository.MemberNameFilter;
+import jpabook.jpashop.repository.MemberNameIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor //final로 선언된 필드로만 생성자를 만들어줌
 public class MemberService {
     private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberNameFilter memberNameFilter;
 
     //회원 가입
     @Transactional
     public Long join(Member member) {
-        validateDuplicateMember(member);
-        memberRepository.save(member);
+        validateDuplicateName(member.getName());
+        try {
+            memberRepository.saveAndFlush(member); //유니크 인덱스 위반을 여기서 확인
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
         return member.getId();
     }
 
-    private void validateDuplicateMember(Member member) {
-        List<Member> findMembers = memberRepository.findByName(member.getName());
-        if (!findMembers.isEmpty()) {
+    /**
+     * 블룸 필터에 없으면 확실히 새 이름 -> DB 조회X, 있을수도 있으면 DB에서 존재여부만 확인
+     * 검사 후 insert 전에 같은 이름으로 동시에 가입하는 경우는 member.name 유니크 인덱스가 막음
+     */
+    private void validateDuplicateName(String name) {
+        if (memberNameFilter.mightContain(name) && memberRepository.existsByName(name)) {
             throw new IllegalStateException("이미 존재하는 회원입니다.");
         }
     }
@@ -35,6 +51,10 @@ public class MemberService {
         return memberRepository.findAll();
     }
 
+    public List<MemberOptionQueryDto> findMemberOptions() {
+        return memberRepository.findAllOptions();
+    }
+
     public Member findOne(Long memberId) {
         return memberRepository.findById(memberId).get();
     }
@@ -42,6 +62,34 @@ public class MemberService {
     @Transactional
     public void update(Long id, String name) {
         Member member = memberRepository.findById(id).get();
+        if (Objects.equals(member.getName(), name)) {
+            return;
+        }
+        validateDuplicateName(name);
         member.setName(name);
+        try {
+            memberRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e);
+        }
+    }
+
+    /**
+     * 회원명 인덱스, 블룸 필터 적재 - 이후 변경은 MemberNameIndexListener가 반영
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadMemberNameIndex() {
+        for (Object[] row : memberRepository.findAllIdAndName()) {
+            memberNameIndex.put((Long) row[0], (String) row[1]);
+            memberNameFilter.put((String) row[1]);
+        }
+        memberNameFilter.ready();
+    }
+
+    /**
+     * 이름에 keyword가 포함된 회원 id
+     */
+    public List<Long> findMemberIdsByName(String keyword) {
+        return memberNameIndex.findIdsContaining(keyword);
     }
 }
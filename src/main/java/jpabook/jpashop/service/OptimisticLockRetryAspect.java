@@ -0,0 +1,46 @@
+package jpabook.jpashop.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @RetryOnOptimisticLock 메서드를 충돌(OptimisticLockingFailureException)시 max-attempts 까지 다시 실행
+ * - 트랜잭션 AOP보다 바깥에서 실행 -> 롤백된 트랜잭션을 버리고 새 트랜잭션에서 처음부터 (엔티티도 다시 조회)
+ * - 이미 트랜잭션 안에서 호출되었으면 재시도하지 않음 (바깥 트랜잭션이 롤백되므로 그 트랜잭션을 시작한 쪽에서 처리)
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1) //@Transactional(LOWEST_PRECEDENCE)보다 먼저
+public class OptimisticLockRetryAspect {
+    private final int maxAttempts;
+
+    public OptimisticLockRetryAspect(@Value("${jpashop.stock.optimistic-max-attempts:3}") int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Around("@annotation(jpabook.jpashop.service.RetryOnOptimisticLock)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("낙관적 락 충돌 {}, 재시도 {}/{}", joinPoint.getSignature().toShortString(), attempt, maxAttempts);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * 아웃박스 이벤트를 보낼 곳 (OutboxRelay) - jpashop.outbox.sink로 선택 (log, file)
+ * - 예외를 던지면 그 묶음은 아웃박스에 남아서 다음 조회때 다시 보냄 (적어도 한번 -> 받는쪽은 id로 중복 제거)
+ * - 다른 곳(메시지 브로커 등)으로 보내려면 이 인터페이스를 구현한 빈을 등록하고 sink를 log, file 이외의 값으로
+ */
+public interface OrderEventSink {
+    void publish(List<OutboxEvent> events);
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryAssembler;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+
+/**
+ * 전체 주문 NDJSON(한 줄에 주문 하나) 내보내기
+ * 메모리 사용량은 테이블 크기가 아니라 fetch size(배치 크기)에 비례
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderExportService {
+    private static final int FETCH_SIZE = 500;
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    public void exportOrders(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        int[] written = {0};
+
+        //응답 스트림은 컨테이너가 닫으므로 generator만 닫음
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)
+                     .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+             Stream<OrderFlatDto> rows = orderQueryRepository.streamAllByDto_flat(FETCH_SIZE)) {
+            generator.setRootValueSeparator(null); //구분자는 줄바꿈만 사용
+            OrderQueryAssembler.forEachOrder(rows.iterator(), order -> {
+                try {
+                    writer.writeValue(generator, order);
+                    generator.writeRaw('\n');
+                    if (++written[0] % FETCH_SIZE == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package jpabook.jpashop.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jpabook.jpashop.exception.OrderIntakeFullException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * 주문 접수 (jpashop.order-intake.enabled=true) - 재고만 차감하고 바로 응답, 주문 저장은 writer 스레드가 모아서
+ * - submit : 회원/상품 확인 + 재고 차감을 짧은 트랜잭션으로 커밋 -> 큐에 넣고 ticket 반환
+ *   (요청 스레드는 재고 update 동안만 커넥션을 씀, 주문/배송/주문상품 insert는 하지 않음)
+ * - 큐는 크기가 정해져 있음 -> offer-timeout 동안 자리가 안나면 재고를 되돌리고 OrderIntakeFullException(503)
+ * - writer 스레드가 큐에서 batch-size만큼 꺼내서 한 트랜잭션으로 저장 (jdbc batch insert)
+ *   실패하면 한건씩 다시 저장 -> 그래도 실패한 주문만 FAILED + 재고 되돌림
+ * - 처리 상태는 ticket으로 조회 (status-retention 동안 보관)
+ * - 큐는 메모리에만 있음 -> 종료시(@PreDestroy)에는 남은 주문을 모두 저장하고 끝나지만,
+ *   프로세스가 죽으면 ACCEPTED 상태의 주문은 사라지고 차감된 재고도 돌아오지 않음
+ * - 메트릭 : order.intake.queue.size, order.intake.accepted/rejected/persisted/failed
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.order-intake.enabled", havingValue = "true")
+public class OrderIntake implements MeterBinder {
+    private final OrderService orderService;
+    private final BlockingQueue<PendingOrder> queue;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final Cache<String, OrderIntakeStatus> statuses;
+    private final List<Thread> writers = new ArrayList<>();
+    private final AtomicLong persisted = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    private volatile boolean running = true;
+
+    public OrderIntake(OrderService orderService,
+                       @Value("${jpashop.order-intake.capacity:10000}") int capacity,
+                       @Value("${jpashop.order-intake.writers:2}") int writerCount,
+                       @Value("${jpashop.order-intake.batch-size:100}") int batchSize,
+                       @Value("${jpashop.order-intake.offer-timeout:50ms}") Duration offerTimeout,
+                       @Value("${jpashop.order-intake.status-retention:10m}") Duration statusRetention) {
+        this.orderService = orderService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(statusRetention)
+                .build();
+        for (int i = 0; i < writerCount; i++) {
+            Thread writer = new Thread(this::write, "order-intake-writer-" + i);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    public OrderIntakeStatus submit(Long memberId, Long itemId, int count) {
+        return submit(new BulkOrderDto(memberId, List.of(new BulkOrderDto.OrderLine(itemId, count))));
+    }
+
+    public OrderIntakeStatus submit(BulkOrderDto order) {
+        if (!running) {
+            throw new OrderIntakeFullException();
+        }
+        orderService.reserve(order);
+
+        OrderIntakeStatus status = OrderIntakeStatus.accepted(UUID.randomUUID().toString());
+        statuses.put(status.getTicket(), status);
+        boolean offered;
+        try {
+            offered = queue.offer(new PendingOrder(status.getTicket(), order), offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            offered = false;
+        }
+        if (!offered) {
+            statuses.invalidate(status.getTicket());
+            orderService.release(order);
+            increment(rejectedCounter);
+            throw new OrderIntakeFullException();
+        }
+        increment(acceptedCounter);
+        return status;
+    }
+
+    /**
+     * ticket의 처리 상태 (없거나 보관기간이 지났으면 null)
+     */
+    public OrderIntakeStatus getStatus(String ticket) {
+        return statuses.getIfPresent(ticket);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("order.intake.queue.size", queue, BlockingQueue::size).register(registry);
+        acceptedCounter = Counter.builder("order.intake.accepted").register(registry);
+        rejectedCounter = Counter.builder("order.intake.rejected").register(registry);
+        FunctionCounter.builder("order.intake.persisted", persisted, AtomicLong::get).register(registry);
+        FunctionCounter.builder("order.intake.failed", failed, AtomicLong::get).register(registry);
+    }
+
+    /**
+     * 접수를 멈추고 큐에 남은 주문을 모두 저장할때까지 기다림
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+
+    private void write() {
+        List<PendingOrder> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                save(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("주문 저장 스레드 오류", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void save(List<PendingOrder> batch) {
+        try {
+            List<Long> orderIds = orderService.saveReserved(batch.stream().map(PendingOrder::getOrder).collect(Collectors.toList()));
+            for (int i = 0; i < batch.size(); i++) {
+                Long orderId = orderIds.get(i);
+                complete(batch.get(i), status -> status.persisted(orderId));
+            }
+            persisted.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                log.warn("주문 {}건 일괄 저장 실패, 한건씩 다시 저장", batch.size(), e);
+                batch.forEach(order -> save(List.of(order)));
+                return;
+            }
+            fail(batch.get(0), e);
+        }
+    }
+
+    private void fail(PendingOrder order, RuntimeException cause) {
+        log.error("접수된 주문 저장 실패 ticket={}", order.getTicket(), cause);
+        try {
+            orderService.release(order.getOrder());
+        } catch (RuntimeException e) {
+            log.error("저장 실패한 주문의 재고를 되돌리지 못했습니다. ticket={}, order={}", order.getTicket(), order.getOrder(), e);
+        }
+        complete(order, status -> status.failed(cause.getMessage()));
+        failed.incrementAndGet();
+    }
+
+    private void complete(PendingOrder order, UnaryOperator<OrderIntakeStatus> change) {
+        statuses.asMap().computeIfPresent(order.getTicket(), (ticket, status) -> change.apply(status));
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    private static class PendingOrder {
+        private final String ticket;
+        private final BulkOrderDto order;
+    }
+}
@@ -0,0 +1,40 @@
+package jpabook.jpashop.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 접수한 주문의 처리 상태 (OrderIntake)
+ * - ACCEPTED : 재고 차감 후 큐에서 저장 대기중 (아직 DB에 없음)
+ * - PERSISTED : 주문이 커밋됨 (orderId)
+ * - FAILED : 저장 실패, 차감했던 재고는 되돌림 (error)
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderIntakeStatus {
+    private final String ticket;
+    private final Status status;
+    private final Long orderId;
+    private final String error;
+    private final LocalDateTime acceptedAt;
+    private final LocalDateTime completedAt;
+
+    public enum Status {
+        ACCEPTED, PERSISTED, FAILED
+    }
+
+    static OrderIntakeStatus accepted(String ticket) {
+        return new OrderIntakeStatus(ticket, Status.ACCEPTED, null, null, LocalDateTime.now(), null);
+    }
+
+    OrderIntakeStatus persisted(Long orderId) {
+        return new OrderIntakeStatus(ticket, Status.PERSISTED, orderId, null, acceptedAt, LocalDateTime.now());
+    }
+
+    OrderIntakeStatus failed(String error) {
+        return new OrderIntakeStatus(ticket, Status.FAILED, null, error, acceptedAt, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.repository.OutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 주문 생성/취소 이벤트를 주문과 같은 트랜잭션에서 아웃박스에 저장 (jpashop.outbox.enabled=true)
+ * - 주문 트랜잭션에서는 insert 한번만 추가됨 (대량주문은 jdbc batch로 같이 나감), 외부 전송은 OutboxRelay가 따로
+ * - 주문이 롤백되면 이벤트도 같이 롤백 -> 커밋된 주문의 이벤트만 나감
+ */
+@Component
+@ConditionalOnProperty(name = "jpashop.outbox.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class OrderOutbox {
+    public static final String ORDER_CREATED = "ORDER_CREATED";
+    public static final String ORDER_CANCELED = "ORDER_CANCELED";
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void on(OrderStatusChangedEvent event) {
+        String type = event.getFrom() == null ? ORDER_CREATED
+                : event.getTo() == OrderStatus.CANCEL ? ORDER_CANCELED
+                : "ORDER_" + event.getTo();
+        outboxRepository.save(OutboxEvent.create(event.getOrderId(), type, toJson(event)));
+    }
+
+    private String toJson(OrderStatusChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("주문 이벤트를 JSON으로 바꾸지 못했습니다. orderId=" + event.getOrderId(), e);
+        }
+    }
+}
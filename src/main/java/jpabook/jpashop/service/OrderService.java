@@ -4,29 +4,48 @@ import jpabook.jpashop.domain.Delivery;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.MemberNameIndex;
 import jpabook.jpashop.repository.MemberRepositoryOld;
+import jpabook.jpashop.repository.OrderFetchProfile;
+import jpabook.jpashop.repository.OrderListQueryDto;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderService {
+    private static final int BULK_FLUSH_SIZE = 500;
+    private static final int MAX_MEMBER_IDS = 1000;
+
     private final OrderRepository orderRepository;
 
     private final MemberRepositoryOld memberRepository;
     private final ItemRepository itemRepository;
+    private final StockService stockService;
+    private final MemberNameIndex memberNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
     /**
      * 주문
      */
     @Transactional
+    @RetryOnOptimisticLock //jpashop.stock.strategy=optimistic
     public Long order(Long memberId, Long itemId, int count) {
         Member member = memberRepository.findOne(memberId);
         Item item = itemRepository.findOne(itemId);
@@ -35,19 +54,114 @@ public class OrderService {
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
+        //재고 차감 (조건부 update, 재고가 부족하면 예외)
+        stockService.removeStock(itemId, count);
+
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
+        OrderItem orderItem = OrderItem.createReservedOrderItem(item, item.getPrice(), count);
 
         //주문 생성
         Order order = Order.createOrder(member, delivery, orderItem);
 
         //주문 저장
         orderRepository.save(order); // cascade타입이 ALL이기때문에 orderItem, delivery가 모두 persist가됨
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, null));
 
 
         return order.getId();
     }
 
+    /**
+     * 대량 주문 (파트너 피드) - 전체가 한 트랜잭션, 하나라도 실패하면 모두 롤백
+     * - 재고는 상품별로 수량을 합쳐서 상품 id 순서로 한번씩 차감 (동시 요청끼리 row 락 순서가 같아서 데드락X)
+     * - insert는 jdbc batch(batch_size, order_inserts) + pooled 시퀀스 -> 시퀀스 조회, insert 모두 50건에 한번
+     * - BULK_FLUSH_SIZE 건마다 flush/clear 해서 영속성 컨텍스트가 계속 커지지 않게 함
+     *   (clear 후에는 회원, 상품이 준영속이 되므로 구간마다 다시 조회)
+     */
+    @Transactional
+    @RetryOnOptimisticLock
+    public List<Long> bulkOrder(List<BulkOrderDto> orders) {
+        removeStock(orders);
+        return saveOrders(orders);
+    }
+
+    /**
+     * 주문 접수(OrderIntake) - 회원, 상품 확인 후 재고만 차감하고 바로 커밋 (주문 저장은 saveReserved)
+     */
+    @Transactional
+    @RetryOnOptimisticLock
+    public void reserve(BulkOrderDto order) {
+        if (memberRepository.findOne(order.getMemberId()) == null) {
+            throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + order.getMemberId());
+        }
+        removeStock(List.of(order));
+    }
+
+    /**
+     * reserve로 재고를 차감해둔 주문들을 한 트랜잭션으로 저장
+     */
+    @Transactional
+    public List<Long> saveReserved(List<BulkOrderDto> orders) {
+        return saveOrders(orders);
+    }
+
+    /**
+     * reserve로 차감한 재고를 되돌림 (주문을 저장하지 못한 경우)
+     */
+    @Transactional
+    public void release(BulkOrderDto order) {
+        for (BulkOrderDto.OrderLine line : order.getItems()) {
+            stockService.restoreStock(line.getItemId(), line.getCount());
+        }
+    }
+
+    private void removeStock(List<BulkOrderDto> orders) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (BulkOrderDto order : orders) {
+            for (BulkOrderDto.OrderLine line : order.getItems()) {
+                quantities.merge(line.getItemId(), line.getCount(), Integer::sum);
+            }
+        }
+        if (itemRepository.findAllById(quantities.keySet()).size() != quantities.size()) {
+            throw new IllegalArgumentException("존재하지 않는 상품이 포함되어 있습니다.");
+        }
+        quantities.forEach(stockService::removeStock);
+    }
+
+    private List<Long> saveOrders(List<BulkOrderDto> orders) {
+        List<Long> orderIds = new ArrayList<>(orders.size());
+        for (int from = 0; from < orders.size(); from += BULK_FLUSH_SIZE) {
+            List<BulkOrderDto> chunk = orders.subList(from, Math.min(from + BULK_FLUSH_SIZE, orders.size()));
+            Map<Long, Member> members = memberRepository.findAllById(chunk.stream().map(BulkOrderDto::getMemberId).collect(Collectors.toSet()))
+                    .stream().collect(Collectors.toMap(Member::getId, m -> m));
+            Map<Long, Item> items = itemRepository.findAllById(chunk.stream().flatMap(o -> o.getItems().stream()).map(BulkOrderDto.OrderLine::getItemId).collect(Collectors.toSet()))
+                    .stream().collect(Collectors.toMap(Item::getId, i -> i));
+
+            for (BulkOrderDto dto : chunk) {
+                Member member = members.get(dto.getMemberId());
+                if (member == null) {
+                    throw new IllegalArgumentException("존재하지 않는 회원입니다. memberId=" + dto.getMemberId());
+                }
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+
+                OrderItem[] orderItems = dto.getItems().stream()
+                        .map(line -> {
+                            Item item = items.get(line.getItemId());
+                            return OrderItem.createReservedOrderItem(item, item.getPrice(), line.getCount());
+                        })
+                        .toArray(OrderItem[]::new);
+
+                Order order = Order.createOrder(member, delivery, orderItems);
+                orderRepository.save(order);
+                orderIds.add(order.getId());
+                eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, null));
+            }
+            orderRepository.flushAndClear();
+        }
+        return orderIds;
+    }
+
     /**
      * 주문 취소
      */
@@ -57,12 +171,38 @@ public class OrderService {
         Order order = orderRepository.findOne(orderId);
         //주문 취소
         //엔티티의 데이터를 수정하면 JPA는 업데이트 쿼리를 날려줌
-        order.cancel();
+        OrderStatus from = order.getStatus();
+        //재고 복구는 엔티티(@Version)를 거치지 않고 조건없는 update로 (동시 주문의 차감과 충돌하지 않음)
+        order.cancel(stockService);
+        eventPublisher.publishEvent(OrderStatusChangedEvent.of(order, from));
     }
 
     //검색
-    public List<Order> findOrders(OrderSearch orderSearch) {
-        return orderRepository.findByString(orderSearch);
+    /**
+     * 회원명은 회원명 인덱스에서 이름이 포함된 회원 id를 먼저 찾아서 id로 조회 (like '%이름%'로 member 전체를 읽지 않음)
+     * 와일드카드를 직접 입력했거나 찾은 회원이 MAX_MEMBER_IDS 보다 많으면 DB like로 조회
+     */
+    public Slice<Order> findOrders(OrderSearch orderSearch, Pageable pageable) {
+        resolveMemberIds(orderSearch);
+        return orderRepository.search(orderSearch, pageable, OrderFetchProfile.WITH_ITEMS);
+    }
+
+    /**
+     * 주문 목록 화면 - findOrders와 같은 검색을 화면에 보여줄 값(대표상품 포함)만 DTO로 조회
+     */
+    public Slice<OrderListQueryDto> findOrderList(OrderSearch orderSearch, Pageable pageable) {
+        resolveMemberIds(orderSearch);
+        return orderRepository.searchList(orderSearch, pageable);
+    }
+
+    private void resolveMemberIds(OrderSearch orderSearch) {
+        orderSearch.setMemberIds(null);
+        if (StringUtils.hasText(orderSearch.getMemberName()) && !orderSearch.isMemberNamePattern()) {
+            List<Long> memberIds = memberNameIndex.findIdsContaining(orderSearch.getMemberName());
+            if (memberIds.size() <= MAX_MEMBER_IDS) {
+                orderSearch.setMemberIds(memberIds);
+            }
+        }
     }
 
 }
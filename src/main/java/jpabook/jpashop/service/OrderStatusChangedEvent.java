@@ -0,0 +1,28 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 주문 생성(from == null), 취소시 OrderService가 발행
+ * 트랜잭션이 커밋된 뒤에 처리할것 (@TransactionalEventListener)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private final Long orderId;
+    private final Long memberId;
+    private final OrderStatus from;
+    private final OrderStatus to;
+    private final int totalPrice;
+    private final int itemCount;
+
+    public static OrderStatusChangedEvent of(Order order, OrderStatus from) {
+        int itemCount = order.getOrderItems().stream().mapToInt(OrderItem::getCount).sum();
+        return new OrderStatusChangedEvent(order.getId(), order.getMember().getId(), from, order.getStatus(),
+                order.getTotalPrice(), itemCount);
+    }
+}
@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 주문 집계 (주문 수, 주문금액 합계, 주문수량 합계)
+ */
+@Getter
+@AllArgsConstructor
+public class OrderSummary {
+    private final long orderCount;
+    private final long totalPrice;
+    private final long itemCount;
+}
@@ -0,0 +1,107 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryQueryDto;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 회원별, 주문상태별 주문 집계 (메모리)
+ * - 시작할때 DB에서 group by로 한번 적재하고, 이후에는 주문/취소 이벤트로 증감만 함 (커밋된 뒤에 반영)
+ * - 적재는 웹 서버가 요청을 받기 전에 (SmartInitializingSingleton - 모든 빈 생성 후, 웹 서버 시작 전)
+ *   -> 적재 중에 커밋되는 주문이 없으므로 적재 전의 이벤트는 이미 적재 결과에 포함 (무시), 적재 후의 이벤트만 반영
+ *   (ApplicationReadyEvent는 이미 요청을 받는 중이라 적재 쿼리와 이벤트에 같은 주문이 두번 반영될수 있음)
+ * - 조회는 Map 조회 한번 (주문, 주문상품을 읽지 않음)
+ * - 값마다 따로 증가시키므로 동시에 읽으면 주문 수와 금액이 잠깐 어긋나 보일수 있음
+ * - 애플리케이션 인스턴스마다 따로 가지고 있음 (다른 인스턴스에서 들어온 주문은 재시작 전까지 반영되지 않음)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryProjection implements SmartInitializingSingleton {
+    private final OrderRepository orderRepository;
+
+    private final Map<OrderStatus, Counter> total = newCounters();
+    private final Map<Long, Map<OrderStatus, Counter>> byMember = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Override
+    @Transactional(readOnly = true)
+    public void afterSingletonsInstantiated() {
+        for (OrderSummaryQueryDto row : orderRepository.summarizeByMemberAndStatus()) {
+            counter(row.getMemberId(), row.getStatus()).add(row.getOrderCount(), row.getTotalPrice(), row.getItemCount());
+            total.get(row.getStatus()).add(row.getOrderCount(), row.getTotalPrice(), row.getItemCount());
+        }
+        loaded = true;
+        log.info("주문 집계 적재 완료 - 회원 {}명", byMember.size());
+    }
+
+    @TransactionalEventListener
+    public void on(OrderStatusChangedEvent event) {
+        if (!loaded) {
+            return; //적재 전에 커밋된 주문 -> 적재 쿼리에 포함됨
+        }
+        if (event.getFrom() != null) {
+            apply(event, event.getFrom(), -1);
+        }
+        apply(event, event.getTo(), 1);
+    }
+
+    public Map<OrderStatus, OrderSummary> summary() {
+        return snapshot(total);
+    }
+
+    public Map<OrderStatus, OrderSummary> summaryOf(Long memberId) {
+        Map<OrderStatus, Counter> counters = byMember.get(memberId);
+        return counters == null ? snapshot(newCounters()) : snapshot(counters);
+    }
+
+    private void apply(OrderStatusChangedEvent event, OrderStatus status, int sign) {
+        counter(event.getMemberId(), status).add(sign, sign * (long) event.getTotalPrice(), sign * (long) event.getItemCount());
+        total.get(status).add(sign, sign * (long) event.getTotalPrice(), sign * (long) event.getItemCount());
+    }
+
+    private Counter counter(Long memberId, OrderStatus status) {
+        return byMember.computeIfAbsent(memberId, id -> newCounters()).get(status);
+    }
+
+    private static Map<OrderStatus, Counter> newCounters() {
+        Map<OrderStatus, Counter> counters = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            counters.put(status, new Counter());
+        }
+        return counters;
+    }
+
+    private static Map<OrderStatus, OrderSummary> snapshot(Map<OrderStatus, Counter> counters) {
+        Map<OrderStatus, OrderSummary> summary = new EnumMap<>(OrderStatus.class);
+        counters.forEach((status, counter) -> summary.put(status, counter.toSummary()));
+        return summary;
+    }
+
+    private static class Counter {
+        private final LongAdder orderCount = new LongAdder();
+        private final LongAdder totalPrice = new LongAdder();
+        private final LongAdder itemCount = new LongAdder();
+
+        void add(long orders, long price, long items) {
+            orderCount.add(orders);
+            totalPrice.add(price);
+            itemCount.add(items);
+        }
+
+        OrderSummary toSummary() {
+            return new OrderSummary(orderCount.sum(), totalPrice.sum(), itemCount.sum());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jpabook.jpashop.domain.OutboxEvent;
+import jpabook.jpashop.repository.OutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 아웃박스 이벤트를 batch-size건씩 꺼내서 OrderEventSink로 보냄 (jpashop.outbox.enabled=true)
+ * - 한 묶음 = 한 트랜잭션 : 잠금(for update skip locked) -> sink로 전송 -> 삭제 -> 커밋
+ *   전송에 실패하면 롤백되어 이벤트가 남고 poll-interval 뒤에 다시 보냄 (적어도 한번)
+ * - 묶음이 가득 찼으면 쉬지 않고 바로 다음 묶음, 덜 찼으면 poll-interval 동안 쉼
+ * - relay 스레드를 늘리면(relays) 잠긴 행을 건너뛰므로 서로 다른 이벤트를 나눠서 보냄
+ *   (이때는 같은 주문의 생성/취소 이벤트 순서가 바뀔수 있음 -> 순서가 필요하면 relays=1)
+ * - 메트릭 : outbox.relay.published, outbox.relay.failures, outbox.relay.batch(묶음 처리 시간),
+ *   outbox.relay.lag(이벤트 저장부터 전송까지 걸린 시간)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.outbox.enabled", havingValue = "true")
+public class OutboxRelay implements MeterBinder {
+    private final OutboxRepository outboxRepository;
+    private final OrderEventSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int relayCount;
+    private final Duration pollInterval;
+    private final List<Thread> relays = new ArrayList<>();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private Timer batchTimer;
+    private Timer lagTimer;
+    private volatile boolean running;
+
+    public OutboxRelay(OutboxRepository outboxRepository, OrderEventSink sink, PlatformTransactionManager transactionManager,
+                       @Value("${jpashop.outbox.batch-size:500}") int batchSize,
+                       @Value("${jpashop.outbox.relays:1}") int relayCount,
+                       @Value("${jpashop.outbox.poll-interval:500ms}") Duration pollInterval) {
+        this.outboxRepository = outboxRepository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.relayCount = relayCount;
+        this.pollInterval = pollInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < relayCount; i++) {
+            Thread relay = new Thread(this::relay, "outbox-relay-" + i);
+            relay.setDaemon(true);
+            relay.start();
+            relays.add(relay);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        for (Thread relay : relays) {
+            relay.interrupt();
+            relay.join();
+        }
+        relays.clear();
+    }
+
+    /**
+     * 한 묶음을 보내고 보낸 건수를 반환
+     */
+    public int relayBatch() {
+        long startedAt = System.nanoTime();
+        List<OutboxEvent> events = transactionTemplate.execute(status -> {
+            List<OutboxEvent> locked = outboxRepository.lockNext(batchSize);
+            if (!locked.isEmpty()) {
+                sink.publish(locked);
+                outboxRepository.delete(locked.stream().map(OutboxEvent::getId).collect(Collectors.toList()));
+            }
+            return locked;
+        });
+        if (!events.isEmpty()) {
+            published.addAndGet(events.size());
+            if (batchTimer != null) {
+                batchTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                LocalDateTime now = LocalDateTime.now();
+                events.forEach(event -> lagTimer.record(Duration.between(event.getCreatedAt(), now)));
+            }
+        }
+        return events.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("outbox.relay.published", published, AtomicLong::get).register(registry);
+        FunctionCounter.builder("outbox.relay.failures", failures, AtomicLong::get).register(registry);
+        batchTimer = Timer.builder("outbox.relay.batch").register(registry);
+        lagTimer = Timer.builder("outbox.relay.lag").publishPercentiles(0.5, 0.99).register(registry);
+    }
+
+    private void relay() {
+        while (running) {
+            try {
+                if (relayBatch() < batchSize) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                failures.incrementAndGet();
+                log.warn("주문 이벤트 전송 실패, {} 뒤에 다시 보냄", pollInterval, e);
+                try {
+                    Thread.sleep(pollInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
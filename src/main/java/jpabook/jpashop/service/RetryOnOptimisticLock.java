@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 낙관적 락 충돌이면 트랜잭션을 새로 시작해서 다시 실행 (OptimisticLockRetryAspect)
+ * 트랜잭션을 시작하는 서비스 메서드(@Transactional)에 같이 붙일것
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnOptimisticLock {
+}
@@ -0,0 +1,95 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.StockRestorer;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ItemRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 주문시 재고 차감
+ * - ATOMIC(기본) : 조건부 update 한번 (where stock_quantity >= ?) -> 락 대기 없이 초과판매 방지
+ * - OPTIMISTIC : 주문 트랜잭션 안에서 엔티티를 읽고 수정 (@Version)
+ *   충돌하면 주문 트랜잭션 전체가 롤백되고 서비스 경계(@RetryOnOptimisticLock)에서 처음부터 재시도
+ * - 인기상품(HotItemStock) : DB에서 미리 가져온 재고를 메모리 버킷에서 차감 (row 락 경합 감소)
+ *
+ * 주문 트랜잭션이 롤백되면 차감한 재고는 복구됨
+ */
+@Service
+@Transactional
+public class StockService implements StockRestorer {
+    public enum Strategy { ATOMIC, OPTIMISTIC }
+
+    private final ItemRepository itemRepository;
+    private final HotItemStock hotItemStock;
+    private final Strategy strategy;
+
+    public StockService(ItemRepository itemRepository,
+                        HotItemStock hotItemStock,
+                        @Value("${jpashop.stock.strategy:atomic}") String strategy) {
+        this.itemRepository = itemRepository;
+        this.hotItemStock = hotItemStock;
+        this.strategy = Strategy.valueOf(strategy.toUpperCase());
+    }
+
+    public void removeStock(Long itemId, int count) {
+        if (hotItemStock.isHot(itemId)) {
+            if (hotItemStock.reserve(itemId, count)) {
+                onRollback(() -> hotItemStock.release(itemId, count)); //DB에서 가져온 경우는 DB 롤백으로 복구됨
+            }
+            return;
+        }
+
+        if (strategy == Strategy.OPTIMISTIC) {
+            //변경감지 update (where version = ?) -> 다른 트랜잭션이 먼저 바꿨으면 커밋할때 ObjectOptimisticLockingFailureException
+            itemRepository.findOne(itemId).removeStock(count);
+            return;
+        }
+        if (itemRepository.removeStock(itemId, count) == 0) {
+            throw new NotEnoughStockException("need more stock");
+        }
+    }
+
+    /**
+     * 차감했던 재고를 되돌림 (이미 커밋된 차감을 취소할때 - 주문 취소, 주문 접수 후 저장 실패 등)
+     * 인기상품은 커밋된 뒤에 버킷으로 (롤백되면 돌려주지 않음)
+     */
+    @Override
+    public void restoreStock(Long itemId, int count) {
+        if (hotItemStock.isHot(itemId)) {
+            afterCommit(() -> hotItemStock.release(itemId, count));
+            return;
+        }
+        itemRepository.addStock(itemId, count);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    compensation.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,44 @@
+package jpabook.jpashop;
+
+import jpabook.jpashop.config.QueryCounter;
+import jpabook.jpashop.config.QueryStats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 쿼리 수 검증
+ * startQueryCount() -> 테스트 대상 실행 (MockMvc 요청 포함) -> assertQueryCount(n) -> stopQueryCount()
+ * 영속성 컨텍스트에 쌓인 쓰기는 flush 될때 실행되므로 필요하면 직접 flush 할것
+ */
+public final class QueryCountAssertions {
+    private QueryCountAssertions() {
+    }
+
+    public static void startQueryCount() {
+        QueryCounter.start();
+    }
+
+    public static void stopQueryCount() {
+        QueryCounter.clear();
+    }
+
+    public static void assertQueryCount(long expected) {
+        assertEquals(expected, stats().getStatementCount(), "실행된 SQL 수");
+    }
+
+    /**
+     * 같은 모양의 SQL이 threshold번 이상 실행되지 않았는지 (N+1)
+     */
+    public static void assertNoRepeatedQueries(int threshold) {
+        assertTrue(stats().getRepeatedStatements(threshold).isEmpty(),
+                () -> "반복 실행된 SQL : " + stats().getRepeatedStatements(threshold));
+    }
+
+    public static QueryStats stats() {
+        QueryStats stats = QueryCounter.current();
+        assertNotNull(stats, "startQueryCount()를 먼저 호출해야 합니다.");
+        return stats;
+    }
+}
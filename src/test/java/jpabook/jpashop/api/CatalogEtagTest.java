@@ -0,0 +1,138 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+
+import static jpabook.jpashop.QueryCountAssertions.*;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class CatalogEtagTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired EntityManager em;
+
+    @AfterEach
+    void tearDown() {
+        stopQueryCount();
+    }
+
+    @Test
+    public void 회원목록_변경이없으면_목록조회없이_304() throws Exception {
+        // given
+        String etag = etag("/api/v2/members");
+
+        // when
+        startQueryCount();
+        mockMvc.perform(get("/api/v2/members").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+
+        // then
+        assertQueryCount(1); //ETag 집계 쿼리만
+    }
+
+    @Test
+    public void 회원가입하면_회원목록과_주문화면_ETag가_바뀜() throws Exception {
+        // given
+        String members = etag("/api/v2/members");
+        String items = etag("/items");
+        String orderForm = etag("/order");
+
+        // when
+        Member member = new Member();
+        member.setName("etag-member");
+        memberService.join(member);
+        em.flush();
+
+        // then
+        assertNotEquals(members, etag("/api/v2/members"));
+        assertNotEquals(orderForm, etag("/order"));
+        mockMvc.perform(get("/items").header(HttpHeaders.IF_NONE_MATCH, items))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void 상품이_바뀌면_상품목록_ETag가_바뀜() throws Exception {
+        // given
+        String items = etag("/items");
+
+        // when
+        Book book = new Book();
+        book.setName("etag-book");
+        book.setPrice(1000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        em.flush();
+
+        // then
+        mockMvc.perform(get("/items").header(HttpHeaders.IF_NONE_MATCH, items))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    /**
+     * 다른 서버가 바꾼 경우 - 이 서버의 애플리케이션 코드를 거치지 않고 DB만 바뀜
+     */
+    @Test
+    public void 다른서버에서_재고가_바뀌어도_상품목록_ETag가_바뀜() throws Exception {
+        // given
+        Book book = new Book();
+        book.setName("etag-stock");
+        book.setPrice(1000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        em.flush();
+        String items = etag("/items");
+
+        // when
+        em.createNativeQuery("update item set stock_quantity = stock_quantity - 1, version = version + 1 where item_id = :itemId")
+                .setParameter("itemId", book.getId())
+                .executeUpdate();
+
+        // then
+        mockMvc.perform(get("/items").header(HttpHeaders.IF_NONE_MATCH, items))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void 회원명을_바꾸면_회원목록_ETag가_바뀜() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("etag-rename");
+        Long memberId = memberService.join(member);
+        em.flush();
+        String members = etag("/api/v2/members");
+
+        // when
+        memberService.update(memberId, "etag-renamed");
+        em.flush();
+
+        // then
+        assertNotEquals(members, etag("/api/v2/members"));
+    }
+
+    private String etag(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
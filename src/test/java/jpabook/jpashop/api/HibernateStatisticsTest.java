@@ -0,0 +1,50 @@
+package jpabook.jpashop.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.repository.OrderFetchProfile;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "jpashop.hibernate.slow-query-threshold=0ms",
+        "management.endpoints.web.exposure.include=hibernate"
+})
+@AutoConfigureMockMvc
+@Transactional
+class HibernateStatisticsTest {
+    private static final String QUERY = "select distinct o from Order o";
+
+    @Autowired MockMvc mockMvc;
+    @Autowired MeterRegistry meterRegistry;
+    @Autowired OrderRepository orderRepository;
+
+    @Test
+    public void 쿼리별_실행시간과_느린쿼리_메트릭() throws Exception {
+        // when
+        orderRepository.findAll(OrderFetchProfile.SUMMARY);
+
+        // then
+        assertTrue(meterRegistry.get("hibernate.query.execution").tag("query", QUERY).timer().count() >= 1,
+                "JPQL 문자열별로 실행시간이 기록되어야 한다.");
+        assertTrue(meterRegistry.get("hibernate.query.slow").tag("query", QUERY).counter().count() >= 1,
+                "기준 시간(0ms) 이상 걸린 쿼리는 느린 쿼리로 집계되어야 한다.");
+        assertTrue(meterRegistry.get("hibernate.entity.loads").tag("entity", "Order").functionCounter().count() >= 1,
+                "엔티티별 로딩 수가 기록되어야 한다.");
+        meterRegistry.get("hibernate.collection.fetches").tag("role", "Order.orderItems").functionCounter();
+
+        mockMvc.perform(get("/actuator/hibernate").param("sort", "max"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.slowQueryThreshold").value(0))
+                .andExpect(jsonPath("$.queries[?(@.query == '" + QUERY + "')].count").exists());
+    }
+}
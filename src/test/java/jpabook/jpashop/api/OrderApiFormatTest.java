@@ -0,0 +1,60 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderApiFormatTest {
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+
+    @Test
+    public void 주문조회_Smile_CBOR_응답은_JSON과_같은_내용() throws Exception {
+        // when
+        byte[] json = fetch("/api/v5/orders", MediaType.APPLICATION_JSON);
+        byte[] smile = fetch("/api/v5/orders", SMILE);
+        byte[] cbor = fetch("/api/v5/orders", MediaType.APPLICATION_CBOR);
+
+        // then
+        JsonNode expected = objectMapper.readTree(json);
+        assertEquals(expected, new ObjectMapper(new SmileFactory()).readTree(smile));
+        assertEquals(expected, new ObjectMapper(new CBORFactory()).readTree(cbor));
+        assertTrue(smile.length < json.length, "Smile 응답이 JSON보다 작아야 한다.");
+        assertTrue(cbor.length < json.length, "CBOR 응답이 JSON보다 작아야 한다.");
+    }
+
+    @Test
+    public void 엔티티를_반환하는_API도_Smile로_응답() throws Exception {
+        //지연로딩 프록시 처리(Hibernate5Module)가 바이너리 컨버터에도 적용되어야 함
+        byte[] smile = fetch("/api/v1/orders", SMILE);
+
+        assertEquals(objectMapper.readTree(fetch("/api/v1/orders", MediaType.APPLICATION_JSON)),
+                new ObjectMapper(new SmileFactory()).readTree(smile));
+    }
+
+    private byte[] fetch(String url, MediaType mediaType) throws Exception {
+        return mockMvc.perform(get(url).accept(mediaType))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(mediaType))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderCursor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 키셋(커서) 페이징 - /api/v3.2/orders
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderCursorTest {
+    private static final LocalDateTime SAME_ORDER_DATE = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired EntityManager em;
+
+    @Test
+    public void 커서_인코딩_디코딩() {
+        OrderCursor byId = OrderCursor.decode(OrderCursor.of(42L).encode());
+        assertFalse(byId.isOrderDateCursor());
+        assertEquals(42L, byId.getOrderId());
+
+        LocalDateTime orderDate = LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123456000);
+        OrderCursor byOrderDate = OrderCursor.decode(OrderCursor.of(orderDate, 7L).encode());
+        assertTrue(byOrderDate.isOrderDateCursor());
+        assertEquals(orderDate, byOrderDate.getOrderDate());
+        assertEquals(7L, byOrderDate.getOrderId());
+    }
+
+    @Test
+    public void 잘못된_커서는_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", "!!not-a-cursor"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("cursor", OrderCursor.of(1L).encode() + "x"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void after와_주문일시_정렬은_같이_쓰면_400() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("after", "1").param("sort", "orderDate"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v3.2/orders").param("after", "1"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void 주문일시가_같아도_누락_중복없이_다음페이지() throws Exception {
+        // given - 주문일시가 모두 같은 주문 (페이지 경계가 같은 주문일시 사이에 걸림)
+        List<Long> sameDateIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sameDateIds.add(createOrder(SAME_ORDER_DATE));
+        }
+        em.flush();
+        em.clear();
+
+        // when - 2건씩 마지막 페이지까지
+        List<Long> visited = new ArrayList<>();
+        List<LocalDateTime> orderDates = new ArrayList<>();
+        String cursor = null;
+        do {
+            JsonNode page = fetch(cursor);
+            for (JsonNode order : page.get("data")) {
+                visited.add(order.get("orderId").asLong());
+                orderDates.add(LocalDateTime.parse(order.get("orderDate").asText()));
+            }
+            cursor = page.get("next").isNull() ? null : page.get("next").asText();
+        } while (cursor != null);
+
+        // then
+        assertEquals(sameDateIds, visited.subList(0, sameDateIds.size()), "같은 주문일시는 주문 id 순");
+        Set<Long> unique = new HashSet<>(visited);
+        assertEquals(visited.size(), unique.size(), "페이지 사이에 중복이 없어야 한다.");
+        for (int i = 1; i < orderDates.size(); i++) {
+            assertFalse(orderDates.get(i).isBefore(orderDates.get(i - 1)), "주문일시 순이어야 한다.");
+        }
+    }
+
+    private JsonNode fetch(String cursor) throws Exception {
+        String body = mockMvc.perform(cursor == null
+                        ? get("/api/v3.2/orders").param("sort", "orderDate").param("limit", "2")
+                        : get("/api/v3.2/orders").param("cursor", cursor).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readTree(body);
+    }
+
+    private Long createOrder(LocalDateTime orderDate) {
+        Member member = new Member();
+        member.setName("커서" + System.nanoTime());
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("커서 학습");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1));
+        order.setOrderDate(orderDate);
+        em.persist(order);
+        return order.getId();
+    }
+}
@@ -0,0 +1,98 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.service.BulkOrderDto;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 전체 주문 내보내기 (NDJSON) - /api/orders/export
+ * 응답은 별도 스레드에서 새 트랜잭션으로 쓰므로 주문을 커밋해두고 확인 (테스트 트랜잭션 사용X)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderExportTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    @Test
+    public void 내보내기는_한줄에_주문하나_주문상품까지() throws Exception {
+        // given - 주문마다 주문상품 2개
+        Long memberId = createMember("내보내기회원");
+        List<Long> itemIds = List.of(createBook("내보내기 학습1"), createBook("내보내기 학습2"));
+        List<BulkOrderDto> bulkOrders = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            bulkOrders.add(new BulkOrderDto(memberId, itemIds.stream()
+                    .map(itemId -> new BulkOrderDto.OrderLine(itemId, 1))
+                    .collect(Collectors.toList())));
+        }
+        List<Long> orderIds = orderService.bulkOrder(bulkOrders);
+
+        // when
+        MvcResult started = mockMvc.perform(get("/api/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        // then - 줄마다 JSON 하나, 같은 주문이 두 줄로 나뉘지 않음
+        Map<Long, OrderQueryDto> exported = new HashMap<>();
+        for (String line : body.split("\n")) {
+            OrderQueryDto order = objectMapper.readValue(line, OrderQueryDto.class);
+            assertNull(exported.put(order.getOrderId(), order), "주문은 한 줄에만 나와야 한다.");
+        }
+        for (Long orderId : orderIds) {
+            OrderQueryDto order = exported.get(orderId);
+            assertNotNull(order, "커밋된 주문은 모두 내보내야 한다.");
+            assertEquals(List.of("내보내기 학습1", "내보내기 학습2"),
+                    order.getOrderItems().stream().map(OrderItemQueryDto::getItemName).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name + System.nanoTime());
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,108 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderFetchProfile;
+import jpabook.jpashop.repository.OrderRepository;
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static jpabook.jpashop.QueryCountAssertions.*;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderFetchProfileTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired OrderRepository orderRepository;
+
+    @AfterEach
+    void tearDown() {
+        stopQueryCount();
+    }
+
+    @Test
+    public void 주문상품_그래프_페이징은_주문수와_무관하게_쿼리3번() {
+        // given
+        for (int i = 0; i < 5; i++) {
+            createOrder();
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        startQueryCount();
+        List<Order> orders = orderRepository.findAll(OrderFetchProfile.WITH_ITEMS, 0, 100);
+
+        // then
+        assertQueryCount(3); //주문+회원+배송, 주문상품 IN, 상품 IN
+        for (Order order : orders) {
+            assertTrue(Hibernate.isInitialized(order.getMember()));
+            assertTrue(Hibernate.isInitialized(order.getDelivery()));
+            assertTrue(Hibernate.isInitialized(order.getOrderItems()));
+            order.getOrderItems().forEach(orderItem -> assertTrue(Hibernate.isInitialized(orderItem.getItem())));
+        }
+    }
+
+    @Test
+    public void 요약_그래프는_주문상품을_조회하지_않음() {
+        // given
+        createOrder();
+        em.flush();
+        em.clear();
+
+        // when
+        startQueryCount();
+        List<Order> orders = orderRepository.findAll(OrderFetchProfile.SUMMARY, 0, 100);
+
+        // then
+        assertQueryCount(1);
+        for (Order order : orders) {
+            assertTrue(Hibernate.isInitialized(order.getMember()));
+            assertFalse(Hibernate.isInitialized(order.getOrderItems()));
+        }
+    }
+
+    @Test
+    public void 키셋_페이징_API_N플러스1_없음() throws Exception {
+        mockMvc.perform(get("/api/v3.2/orders").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-N-Plus-One", "0"));
+    }
+
+    private void createOrder() {
+        Member member = new Member();
+        member.setName("그래프" + System.nanoTime());
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("그래프 학습");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        em.persist(Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1)));
+    }
+}
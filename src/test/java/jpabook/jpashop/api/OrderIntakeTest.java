@@ -0,0 +1,130 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.service.BulkOrderDto;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderIntake;
+import jpabook.jpashop.service.OrderIntakeStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 주문 접수 - 재고만 차감하고 응답, 저장은 writer 스레드가 (커밋된 데이터를 봐야 하므로 @Transactional 없음)
+ */
+@SpringBootTest(properties = "jpashop.order-intake.enabled=true")
+@AutoConfigureMockMvc
+class OrderIntakeTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired OrderIntake orderIntake;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderRepository orderRepository;
+
+    @Test
+    public void 접수하면_202_저장되면_PERSISTED() throws Exception {
+        // given
+        Long memberId = createMember("접수회원A");
+        Long itemId = createBook("접수 학습", 10);
+        BulkOrderDto order = new BulkOrderDto(memberId, List.of(new BulkOrderDto.OrderLine(itemId, 3)));
+
+        // when
+        String location = mockMvc.perform(post("/api/v1/orders/intake")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(order)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status").value("ACCEPTED"))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        // then
+        assertEquals(7, itemService.findOne(itemId).getStockQuantity(), "접수시 재고가 바로 차감되어야 한다.");
+        OrderIntakeStatus persisted = awaitCompleted(location.substring(location.lastIndexOf('/') + 1));
+        assertEquals(OrderIntakeStatus.Status.PERSISTED, persisted.getStatus());
+        assertEquals(memberId, orderRepository.findOne(persisted.getOrderId()).getMember().getId());
+        mockMvc.perform(get(location))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId").value(persisted.getOrderId()));
+    }
+
+    @Test
+    public void 여러건을_접수해도_모두_저장됨() throws Exception {
+        // given
+        Long memberId = createMember("접수회원B");
+        Long itemId = createBook("일괄저장 학습", 500);
+
+        // when
+        OrderIntakeStatus[] accepted = new OrderIntakeStatus[300];
+        for (int i = 0; i < accepted.length; i++) {
+            accepted[i] = orderIntake.submit(memberId, itemId, 1);
+        }
+
+        // then
+        for (OrderIntakeStatus status : accepted) {
+            assertEquals(OrderIntakeStatus.Status.PERSISTED, awaitCompleted(status.getTicket()).getStatus());
+        }
+        assertEquals(200, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 재고가_부족하면_접수하지_않음() throws Exception {
+        // given
+        Long memberId = createMember("접수회원C");
+        Long itemId = createBook("재고부족 학습", 1);
+
+        // when, then
+        assertThrows(NotEnoughStockException.class, () -> orderIntake.submit(memberId, itemId, 2));
+        assertEquals(1, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 없는_ticket은_404() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/intake/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    private OrderIntakeStatus awaitCompleted(String ticket) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            OrderIntakeStatus status = orderIntake.getStatus(ticket);
+            if (status.getStatus() != OrderIntakeStatus.Status.ACCEPTED) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        return fail("주문이 저장되지 않았습니다. ticket=" + ticket);
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
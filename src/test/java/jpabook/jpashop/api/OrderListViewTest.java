@@ -0,0 +1,131 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.ItemListQueryDto;
+import jpabook.jpashop.repository.OrderListQueryDto;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.service.BulkOrderDto;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.StockService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static jpabook.jpashop.QueryCountAssertions.*;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * open-in-view=false - 화면은 서비스에서 조회한 DTO만 사용 (트랜잭션 밖에서 지연로딩하면 LazyInitializationException)
+ * 테스트 트랜잭션이 요청까지 감싸면 확인이 안되므로 @Transactional 없음
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderListViewTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired StockService stockService;
+
+    @AfterEach
+    void tearDown() {
+        stopQueryCount();
+    }
+
+    @Test
+    public void 주문목록은_대표상품까지_쿼리1번() {
+        // given
+        Long memberId = createMember("목록회원A");
+        Long firstItemId = createBook("대표상품 학습", 10000);
+        Long secondItemId = createBook("두번째상품 학습", 20000);
+        BulkOrderDto bulkOrder = new BulkOrderDto(memberId, List.of(
+                new BulkOrderDto.OrderLine(firstItemId, 2),
+                new BulkOrderDto.OrderLine(secondItemId, 1)));
+        Long orderId = orderService.bulkOrder(List.of(bulkOrder)).get(0);
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("목록회원A");
+
+        // when
+        startQueryCount();
+        List<OrderListQueryDto> orders = orderService.findOrderList(orderSearch, PageRequest.of(0, 10)).getContent();
+
+        // then
+        assertQueryCount(1);
+        assertEquals(1, orders.size(), "주문상품이 여러개여도 주문당 한줄");
+        OrderListQueryDto order = orders.get(0);
+        assertEquals(orderId, order.getOrderId());
+        assertEquals("목록회원A", order.getMemberName());
+        assertEquals("대표상품 학습", order.getItemName());
+        assertEquals(10000, order.getOrderPrice());
+        assertEquals(2, order.getCount());
+        assertEquals(40000, order.getTotalPrice());
+        assertEquals(OrderStatus.ORDER, order.getStatus());
+    }
+
+    @Test
+    public void 트랜잭션_밖에서_화면을_그려도_지연로딩_없음() throws Exception {
+        // given
+        Long memberId = createMember("목록회원B");
+        Long itemId = createBook("화면 학습", 10000);
+        orderService.order(memberId, itemId, 1);
+
+        // when, then
+        mockMvc.perform(get("/orders").param("memberName", "목록회원B"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("목록회원B")))
+                .andExpect(content().string(containsString("화면 학습")));
+        mockMvc.perform(get("/items"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("화면 학습")));
+        mockMvc.perform(get("/order"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("목록회원B")));
+    }
+
+    @Test
+    public void 상품목록은_재고_차감을_바로_반영() {
+        // given
+        Long itemId = createBook("재고 반영 학습", 10000);
+        itemService.findItemList(); //이전 목록을 한번 읽어둠
+
+        // when
+        stockService.removeStock(itemId, 3);
+
+        // then
+        ItemListQueryDto item = itemService.findItemList().stream()
+                .filter(i -> i.getId().equals(itemId))
+                .findFirst().orElseThrow();
+        assertEquals(7, item.getStockQuantity());
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,143 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static jpabook.jpashop.QueryCountAssertions.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 주문 DTO 조회 (V5 IN 쿼리 묶음, V6 플랫 조회 페이징)
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class OrderQueryDtoTest {
+    private static final int IN_CHUNK_SIZE = 128; //OrderQueryRepository.IN_CHUNK_SIZE
+
+    @Autowired EntityManager em;
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @AfterEach
+    void tearDown() {
+        stopQueryCount();
+    }
+
+    @Test
+    public void 주문상품_IN쿼리는_묶음마다_같은_SQL_모두_주문에_담김() {
+        // given - 아직 커밋하지 않은 주문도 보여야 함 (묶음 조회도 같은 트랜잭션)
+        Book first = createBook("묶음 학습1");
+        Book second = createBook("묶음 학습2");
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < IN_CHUNK_SIZE * 2 + 30; i++) {
+            orderIds.add(createOrder(first, second));
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        startQueryCount();
+        List<OrderQueryDto> orders = orderQueryRepository.findAllByDto_optimization();
+
+        // then
+        int chunks = (orders.size() + IN_CHUNK_SIZE - 1) / IN_CHUNK_SIZE;
+        assertQueryCount(1 + chunks); //주문 1번 + 묶음마다 1번
+        //꽉 찬 묶음은 같은 SQL, 마지막 묶음은 in_clause_parameter_padding으로 2의 제곱 개수
+        assertEquals(1, stats().getRepeatedStatements(orders.size() / IN_CHUNK_SIZE).size(), "꽉 찬 묶음은 같은 SQL이어야 한다.");
+
+        Map<Long, OrderQueryDto> byId = orders.stream().collect(Collectors.toMap(OrderQueryDto::getOrderId, Function.identity()));
+        for (Long orderId : orderIds) {
+            List<OrderItemQueryDto> orderItems = byId.get(orderId).getOrderItems();
+            assertEquals(2, orderItems.size(), "주문상품이 빠지거나 중복되면 안된다. orderId=" + orderId);
+            assertEquals(List.of("묶음 학습1", "묶음 학습2"),
+                    orderItems.stream().map(OrderItemQueryDto::getItemName).sorted().collect(Collectors.toList()));
+            orderItems.forEach(orderItem -> assertEquals(orderId, orderItem.getOrderId()));
+        }
+    }
+
+    @Test
+    public void 플랫조회_페이징은_주문기준_limit건_주문상품은_모두() throws Exception {
+        // given - 주문마다 주문상품 3개
+        Book first = createBook("플랫 학습1");
+        Book second = createBook("플랫 학습2");
+        Book third = createBook("플랫 학습3");
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(createOrder(first, second, third));
+        }
+        em.flush();
+        em.clear();
+        int before = em.createQuery("select count(o) from Order o where o.id < :orderId", Long.class)
+                .setParameter("orderId", orderIds.get(0))
+                .getSingleResult().intValue();
+
+        // when - 두번째 주문부터 3건 (row 기준이면 주문 1건 분량)
+        String body = mockMvc.perform(get("/api/v6/orders")
+                        .param("offset", String.valueOf(before + 1))
+                        .param("limit", "3"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<OrderQueryDto> orders = List.of(objectMapper.readValue(body, OrderQueryDto[].class));
+
+        // then
+        assertEquals(orderIds.subList(1, 4), orders.stream().map(OrderQueryDto::getOrderId).collect(Collectors.toList()));
+        for (OrderQueryDto order : orders) {
+            assertEquals(List.of("플랫 학습1", "플랫 학습2", "플랫 학습3"),
+                    order.getOrderItems().stream().map(OrderItemQueryDto::getItemName).sorted().collect(Collectors.toList()));
+            order.getOrderItems().forEach(orderItem -> assertEquals(order.getOrderId(), orderItem.getOrderId()));
+        }
+    }
+
+    private Book createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10000);
+        em.persist(book);
+        return book;
+    }
+
+    private Long createOrder(Book... books) {
+        Member member = new Member();
+        member.setName("DTO조회" + System.nanoTime());
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        em.persist(member);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        OrderItem[] orderItems = new OrderItem[books.length];
+        for (int i = 0; i < books.length; i++) {
+            orderItems[i] = OrderItem.createOrderItem(books[i], 10000, 1);
+        }
+        Order order = Order.createOrder(member, delivery, orderItems);
+        em.persist(order);
+        return order.getId();
+    }
+}
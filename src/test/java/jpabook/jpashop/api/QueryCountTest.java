@@ -0,0 +1,190 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.BulkOrderDto;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static jpabook.jpashop.QueryCountAssertions.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class QueryCountTest {
+    @Autowired MockMvc mockMvc;
+    @Autowired EntityManager em;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @AfterEach
+    void tearDown() {
+        stopQueryCount();
+    }
+
+    @Test
+    public void 페치조인_주문조회는_쿼리1번() throws Exception {
+        startQueryCount();
+
+        mockMvc.perform(get("/api/v3/orders"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Query-Count", "1"))
+                .andExpect(header().string("X-Query-N-Plus-One", "0"));
+
+        assertQueryCount(1);
+    }
+
+    /**
+     * 병렬 조회는 트랜잭션 밖에서 실행되므로 주문을 커밋해두고 비교 (테스트 트랜잭션 사용X)
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void 병렬_주문상품_조회는_V4와_같은_결과() throws Exception {
+        // given
+        Long memberId = createCommittedMember("병렬조회회원");
+        List<Long> itemIds = List.of(createCommittedBook("병렬 학습1"), createCommittedBook("병렬 학습2"), createCommittedBook("병렬 학습3"));
+        List<BulkOrderDto> orders = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orders.add(new BulkOrderDto(memberId, itemIds.stream()
+                    .map(itemId -> new BulkOrderDto.OrderLine(itemId, 1))
+                    .collect(Collectors.toList())));
+        }
+        List<Long> orderIds = orderService.bulkOrder(orders);
+
+        // when
+        MvcResult v4 = mockMvc.perform(get("/api/v4/orders")).andExpect(status().isOk()).andReturn();
+        MvcResult parallel = mockMvc.perform(get("/api/v4.1/orders")).andExpect(status().isOk()).andReturn();
+
+        // then
+        assertEquals(v4.getResponse().getContentAsString(), parallel.getResponse().getContentAsString(), "주문 순서까지 같아야 한다.");
+        assertEquals(v4.getResponse().getHeader("X-Query-Count"), parallel.getResponse().getHeader("X-Query-Count"),
+                "병렬 실행된 쿼리도 요청의 쿼리 수에 포함되어야 한다.");
+        Map<Long, OrderQueryDto> byId = Arrays.stream(objectMapper.readValue(parallel.getResponse().getContentAsString(StandardCharsets.UTF_8), OrderQueryDto[].class))
+                .collect(Collectors.toMap(OrderQueryDto::getOrderId, Function.identity()));
+        for (Long orderId : orderIds) {
+            assertEquals(List.of("병렬 학습1", "병렬 학습2", "병렬 학습3"), byId.get(orderId).getOrderItems().stream()
+                    .map(OrderItemQueryDto::getItemName).sorted().collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * 동시 요청 수가 커넥션 풀 크기를 넘어도 커넥션을 서로 기다리며 멈추지 않아야 함 (커넥션 타임아웃 30초 안에 끝남)
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void 병렬_주문상품_조회_동시요청이_커넥션풀보다_많아도_멈추지않음() throws Exception {
+        int requests = 3 * 10; //hikari maximum-pool-size 기본 10
+        ExecutorService clients = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            futures.add(clients.submit(() -> {
+                start.await();
+                return orderQueryRepository.findOrderQueryDtos_parallel();
+            }));
+        }
+        start.countDown();
+        try {
+            for (Future<?> future : futures) {
+                future.get(20, TimeUnit.SECONDS);
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 같은_모양의_쿼리반복_N플러스1_감지() throws Exception {
+        // given
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(createOrder());
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        startQueryCount();
+        for (Long orderId : orderIds) {
+            em.find(Order.class, orderId);
+        }
+
+        // then
+        assertQueryCount(5);
+        assertEquals(1, stats().getRepeatedStatements(5).size(), "주문 단건 조회가 반복된것으로 감지되어야 한다.");
+    }
+
+    private Long createCommittedMember(String name) {
+        Member member = new Member();
+        member.setName(name + System.nanoTime());
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createCommittedBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createOrder() {
+        Member member = new Member();
+        member.setName("쿼리카운트" + System.nanoTime());
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("쿼리 학습");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1));
+        em.persist(order);
+        return order.getId();
+    }
+}
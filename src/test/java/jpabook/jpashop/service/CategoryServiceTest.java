@@ -0,0 +1,139 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.CategoryTree;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 카테고리 트리 스냅샷은 커밋된 뒤에 갱신되므로 @Transactional 없이 실행
+ */
+@SpringBootTest
+class CategoryServiceTest {
+    @Autowired CategoryService categoryService;
+    @Autowired ItemService itemService;
+    @Autowired CategoryRepository categoryRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 하위_카테고리_상품_조회() throws Exception {
+        // given
+        Long root = categoryService.create("도서", null);
+        Long it = categoryService.create("IT", root);
+        Long java = categoryService.create("자바", it);
+        Long novel = categoryService.create("소설", root);
+        Long jpaBook = createBook("JPA 프로그래밍");
+        Long novelBook = createBook("소설책");
+        categoryService.addItem(java, jpaBook);
+        categoryService.addItem(novel, novelBook);
+
+        // when
+        CategoryTree tree = categoryService.tree();
+
+        // then
+        assertEquals(List.of(root, it, java, novel), tree.getSubtreeIds(root), "하위 카테고리는 전위순회 순서");
+        assertEquals(List.of(it, root), tree.getAncestorIds(java));
+        assertTrue(tree.isInSubtree(java, root));
+        assertFalse(tree.isInSubtree(novel, it));
+        assertEquals(List.of(jpaBook), itemIds(categoryService.findItemsInSubtree(it)));
+        assertEquals(List.of(jpaBook, novelBook), itemIds(categoryService.findItemsInSubtree(root)));
+    }
+
+    @Test
+    public void 카테고리_이동() throws Exception {
+        // given
+        Long root = categoryService.create("음반", null);
+        Long pop = categoryService.create("팝", root);
+        Long kpop = categoryService.create("케이팝", root);
+
+        // when
+        categoryService.move(kpop, pop);
+
+        // then
+        CategoryTree tree = categoryService.tree();
+        assertEquals(List.of(pop, root), tree.getAncestorIds(kpop), "커밋 후 스냅샷이 교체되어야 한다.");
+        assertEquals(List.of(pop), tree.getChildIds(root));
+        assertThrows(IllegalArgumentException.class, () -> categoryService.move(root, kpop), "하위 카테고리로 이동할 수 없다.");
+    }
+
+    @Test
+    public void 스냅샷에_없는_하위_카테고리로도_이동할수_없음() throws Exception {
+        // given - 다른 인스턴스에서 추가된 것처럼 이벤트 없이 저장 (이 인스턴스의 스냅샷에는 없음)
+        Long root = categoryService.create("영화", null);
+        Long child = new TransactionTemplate(transactionManager).execute(status -> {
+            Category category = new Category();
+            category.setName("액션");
+            categoryRepository.findOne(root).addChildCategory(category);
+            categoryRepository.save(category);
+            return category.getId();
+        });
+        assertFalse(categoryService.tree().contains(child));
+
+        // when, then
+        assertThrows(IllegalArgumentException.class, () -> categoryService.move(root, child));
+        assertEquals(List.of(), categoryRepository.findItemIdsInSubtree(root), "순환이 없어야 재귀 조회가 끝난다.");
+    }
+
+    @Test
+    public void 서로의_하위로_동시에_이동해도_순환이_생기지않음() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            // given
+            Long first = categoryService.create("동시이동A" + i, null);
+            Long second = categoryService.create("동시이동B" + i, null);
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            CountDownLatch start = new CountDownLatch(1);
+
+            // when
+            Future<Boolean> firstMove = executor.submit(() -> move(start, first, second));
+            Future<Boolean> secondMove = executor.submit(() -> move(start, second, first));
+            start.countDown();
+            boolean firstMoved = firstMove.get(30, TimeUnit.SECONDS);
+            boolean secondMoved = secondMove.get(30, TimeUnit.SECONDS);
+            executor.shutdown();
+
+            // then
+            assertFalse(firstMoved && secondMoved, "둘 다 이동하면 순환이 생긴다.");
+            categoryRepository.findItemIdsInSubtree(first);
+        }
+    }
+
+    private boolean move(CountDownLatch start, Long categoryId, Long parentId) throws InterruptedException {
+        start.await();
+        try {
+            categoryService.move(categoryId, parentId);
+            return true;
+        } catch (IllegalArgumentException | DataAccessException e) {
+            return false; //순환 또는 잠금 교착으로 거절
+        }
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private List<Long> itemIds(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
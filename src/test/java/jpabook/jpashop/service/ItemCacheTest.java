@@ -0,0 +1,104 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import static jpabook.jpashop.QueryCountAssertions.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 상품 2차캐시 - 재고가 바뀌면 캐시된 이전 재고를 읽지 않아야 함 (커밋되어야 캐시에 반영되므로 @Transactional 없음)
+ */
+@SpringBootTest
+class ItemCacheTest {
+    @Autowired ItemService itemService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired EntityManagerFactory emf;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        stopQueryCount();
+    }
+
+    @Test
+    public void 엔티티로_재고를_바꾸면_캐시도_갱신() {
+        // given
+        Long itemId = createCachedBook("캐시 엔티티 학습", 10);
+
+        // when - 변경감지(update)
+        inTransaction(() -> itemRepository.findOne(itemId).removeStock(2));
+
+        // then
+        assertTrue(emf.getCache().contains(Item.class, itemId), "커밋하면 캐시 엔트리가 새 값으로 교체된다.");
+        assertEquals(8, freshStock(itemId));
+    }
+
+    @Test
+    public void 네이티브_update로_재고를_바꾸면_캐시에서_제거() {
+        // given
+        Long itemId = createCachedBook("캐시 네이티브 학습", 10);
+
+        // when - 조건부 update (StockService ATOMIC)
+        inTransaction(() -> itemRepository.removeStock(itemId, 3));
+
+        // then
+        assertFalse(emf.getCache().contains(Item.class, itemId), "엔티티를 거치지 않았으므로 캐시에서 제거되어야 한다.");
+        assertEquals(7, freshStock(itemId));
+    }
+
+    @Test
+    public void 네이티브_update후_영속성컨텍스트의_상품은_다시_조회하지_않고_반영() {
+        // given
+        Long itemId = createCachedBook("캐시 영속성컨텍스트 학습", 10);
+
+        // when - 주문처럼 상품을 읽은 뒤 차감
+        inTransaction(() -> {
+            Item item = itemRepository.findOne(itemId); //2차캐시
+            startQueryCount();
+            itemRepository.removeStock(itemId, 4);
+            em.flush();
+
+            // then
+            assertQueryCount(1); //조건부 update만 (refresh select, 변경감지 update X)
+            assertEquals(6, item.getStockQuantity());
+        });
+        assertEquals(6, freshStock(itemId));
+    }
+
+    private Long createCachedBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        emf.getCache().evict(Item.class, book.getId());
+        freshStock(book.getId()); //DB에서 읽어서 캐시에 올림
+        assertTrue(emf.getCache().contains(Item.class, book.getId()));
+        return book.getId();
+    }
+
+    /**
+     * 새 트랜잭션(새 영속성 컨텍스트)에서 조회 -> 2차캐시에 있으면 캐시에서
+     */
+    private int freshStock(Long itemId) {
+        return new TransactionTemplate(transactionManager).execute(status -> itemRepository.findOne(itemId).getStockQuantity());
+    }
+
+    private void inTransaction(Runnable action) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> action.run());
+    }
+}
@@ -1,15 +1,25 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberNameFilter;
 import jpabook.jpashop.repository.MemberRepositoryOld;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -17,6 +27,7 @@ import static org.junit.jupiter.api.Assertions.*;
 @Transactional
 public class MemberServiceTest {
     @Autowired MemberService memberService;
+    @Autowired MemberNameFilter memberNameFilter;
     @Autowired
     MemberRepositoryOld memberRepository;
     @Autowired EntityManager em;
@@ -53,4 +64,83 @@ public class MemberServiceTest {
         IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> memberService.join(member2));
         assertEquals("이미 존재하는 회원입니다.", thrown.getMessage());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void 회원명_부분검색() throws Exception {
+        // given
+        Long id1 = memberService.join(createMember("김진영"));
+        Long id2 = memberService.join(createMember("진영수"));
+        Long id3 = memberService.join(createMember("박영희"));
+        em.flush(); // insert 후에 인덱스에 반영됨
+
+        // when
+        List<Long> found = memberService.findMemberIdsByName("진영");
+
+        // then
+        assertTrue(found.containsAll(List.of(id1, id2)), "이름에 검색어가 포함된 회원을 찾아야 한다.");
+        assertFalse(found.contains(id3));
+
+        // 이름을 바꾸면 인덱스도 바뀌어야 한다
+        memberService.update(id1, "김영수");
+        em.flush();
+        assertFalse(memberService.findMemberIdsByName("진영").contains(id1));
+        assertTrue(memberService.findMemberIdsByName("영수").containsAll(List.of(id1, id2)));
+    }
+
+    @Test
+    public void 블룸필터에_없는_이름은_새이름() throws Exception {
+        // given
+        String name = "블룸필터" + System.nanoTime();
+        assertFalse(memberNameFilter.mightContain(name), "가입한적 없는 이름은 필터에 없어야 한다.");
+
+        // when
+        memberService.join(createMember(name));
+
+        // then
+        assertTrue(memberNameFilter.mightContain(name));
+        assertThrows(IllegalStateException.class, () -> memberService.join(createMember(name)));
+    }
+
+    /**
+     * 중복검사 후 insert 전에 같은 이름으로 동시에 가입 -> 유니크 인덱스로 하나만 성공 (커밋되어야 하므로 트랜잭션 없이)
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void 동시_가입_중복_회원_예외() throws Exception {
+        // given
+        int threads = 8;
+        String name = "동시가입" + System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> results = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return memberService.join(createMember(name));
+            }));
+        }
+        start.countDown();
+
+        int joined = 0;
+        for (Future<Long> result : results) {
+            try {
+                result.get(30, TimeUnit.SECONDS);
+                joined++;
+            } catch (ExecutionException e) {
+                assertEquals(IllegalStateException.class, e.getCause().getClass(), "중복 가입은 IllegalStateException이어야 한다.");
+            }
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(1, joined, "같은 이름으로는 한명만 가입되어야 한다.");
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        return member;
+    }
+}
@@ -0,0 +1,114 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * jpashop.stock.strategy=optimistic - 주문 트랜잭션 안에서 @Version으로 차감, 충돌하면 주문 전체를 재시도
+ */
+@SpringBootTest(properties = {
+        "jpashop.stock.strategy=optimistic",
+        "jpashop.stock.optimistic-max-attempts=100" //한 상품에 몰아서 주문하므로 충분히 재시도
+})
+class OptimisticStockServiceTest {
+    private static final int THREADS = 8;
+    private static final int ORDERS_PER_THREAD = 10;
+    private static final int STOCK = 50;
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 동시주문_충돌은_재시도하고_초과판매_없음() throws Exception {
+        // given
+        Long memberId = createMember("낙관적락A");
+        Long itemId = createBook("낙관적락 학습", STOCK);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ORDERS_PER_THREAD; j++) {
+                    try {
+                        orderService.order(memberId, itemId, 1);
+                        success.incrementAndGet();
+                    } catch (NotEnoughStockException e) {
+                        // 재고 부족은 정상
+                    } catch (OptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet(); //재시도를 모두 써버린 경우
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertTrue(success.get() <= STOCK, "재고보다 많이 팔리면 안된다.");
+        assertEquals(STOCK - success.get(), itemService.findOne(itemId).getStockQuantity(), "성공한 주문 수량만큼만 차감되어야 한다.");
+        assertEquals(0, conflicts.get(), "충돌은 서비스 경계에서 재시도되어야 한다.");
+    }
+
+    @Test
+    public void 주문이_롤백되면_차감도_롤백() {
+        // given
+        Long memberId = createMember("낙관적락B");
+        Long itemId = createBook("낙관적락 롤백 학습", STOCK);
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderService.order(memberId, itemId, 3);
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertEquals(STOCK, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -16,7 +16,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import jpabook.jpashop.repository.OrderSearch;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
 import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -83,6 +93,73 @@ class OrderServiceTest2 {
         Assert.assertEquals("주문이 취소된 상품은 그만큼 재고가 증가해야한다.", 10, item.getStockQuantity());
     }
 
+    @Test
+    public void 대량주문() throws Exception {
+        // given
+        Member member = createMember();
+        Item item1 = createBook("JPA 학습", 10000, 1000);
+        Item item2 = createBook("스프링 학습", 20000, 2000);
+
+        List<BulkOrderDto> orders = new ArrayList<>();
+        for (int i = 0; i < 600; i++) { // flush/clear 구간(500건)을 넘도록
+            orders.add(new BulkOrderDto(member.getId(), List.of(
+                    new BulkOrderDto.OrderLine(item1.getId(), 1),
+                    new BulkOrderDto.OrderLine(item2.getId(), 2))));
+        }
+
+        // when
+        List<Long> orderIds = orderService.bulkOrder(orders);
+
+        // then
+        assertEquals(600, orderIds.size());
+        Order order = orderRepository.findOne(orderIds.get(599));
+        assertEquals(2, order.getOrderItems().size(), "주문상품이 모두 저장되어야 한다.");
+        assertEquals(10000 + 20000 * 2, order.getTotalPrice());
+        assertEquals(400, em.find(Item.class, item1.getId()).getStockQuantity(), "주문 수량만큼 재고가 줄어야한다.");
+        assertEquals(800, em.find(Item.class, item2.getId()).getStockQuantity(), "주문 수량만큼 재고가 줄어야한다.");
+    }
+
+    @Test
+    public void 주문검색() throws Exception {
+        // given
+        Member member = createMember();
+        Item item1 = createBook("JPA 학습", 10000, 100);
+        Item item2 = createBook("스프링 학습", 20000, 100);
+        for (int i = 0; i < 3; i++) {
+            orderService.order(member.getId(), item1.getId(), 1);   // 10000원
+        }
+        Long targetId = orderService.order(member.getId(), item2.getId(), 2); // 40000원
+        orderService.order(member.getId(), item2.getId(), 1);       // 20000원
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("진영");
+        orderSearch.setCity("부산");
+        orderSearch.setItemId(item2.getId());
+        orderSearch.setMinTotalPrice(30000);
+        orderSearch.setOrderDateFrom(LocalDate.now());
+        orderSearch.setCount(true);
+
+        // when
+        Slice<Order> result = orderService.findOrders(orderSearch, PageRequest.of(0, 10));
+
+        // then
+        assertEquals(1, result.getContent().size());
+        assertEquals(targetId, result.getContent().get(0).getId());
+        assertEquals(1, ((Page<Order>) result).getTotalElements());
+
+        OrderSearch byItem = new OrderSearch();
+        byItem.setItemId(item1.getId());
+        Slice<Order> firstPage = orderService.findOrders(byItem, PageRequest.of(0, 2));
+        assertEquals(2, firstPage.getContent().size());
+        assertTrue("3건중 2건만 조회했으므로 다음 페이지가 있어야 한다.", firstPage.hasNext());
+        assertFalse(orderService.findOrders(byItem, PageRequest.of(1, 2)).hasNext());
+
+        OrderSearch byItem2 = new OrderSearch();
+        byItem2.setItemId(item2.getId());
+        List<Order> sorted = orderService.findOrders(byItem2, PageRequest.of(0, 10, Sort.by("totalPrice"))).getContent();
+        assertEquals(List.of(20000, 40000), sorted.stream().map(Order::getTotalPrice).collect(Collectors.toList()));
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
@@ -0,0 +1,79 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSummaryQueryDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 주문 집계는 커밋된 뒤에 반영되므로 @Transactional 없이 실행
+ */
+@SpringBootTest
+class OrderSummaryProjectionTest {
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OrderSummaryProjection orderSummaryProjection;
+    @Autowired OrderRepository orderRepository;
+
+    /**
+     * 시작할때 이미 있던 주문(InitDb)이 적재 쿼리와 이벤트로 두번 반영되지 않아야 함
+     */
+    @Test
+    public void 집계는_DB_group_by와_같음() {
+        // given
+        Map<OrderStatus, Long> orderCounts = new EnumMap<>(OrderStatus.class);
+        for (OrderSummaryQueryDto row : orderRepository.summarizeByMemberAndStatus()) {
+            orderCounts.merge(row.getStatus(), row.getOrderCount(), Long::sum);
+        }
+
+        // when
+        Map<OrderStatus, OrderSummary> summary = orderSummaryProjection.summary();
+
+        // then
+        for (OrderStatus status : OrderStatus.values()) {
+            assertEquals(orderCounts.getOrDefault(status, 0L), summary.get(status).getOrderCount(), status.name());
+        }
+    }
+
+    @Test
+    public void 주문_취소시_집계_반영() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("주문집계");
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        Long memberId = memberService.join(member);
+
+        Book book = new Book();
+        book.setName("집계 학습");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        long orderedBefore = orderSummaryProjection.summary().get(OrderStatus.ORDER).getOrderCount();
+
+        // when
+        orderService.order(memberId, book.getId(), 2);
+        Long canceledId = orderService.order(memberId, book.getId(), 3);
+        orderService.cancel(canceledId);
+
+        // then
+        Map<OrderStatus, OrderSummary> summary = orderSummaryProjection.summaryOf(memberId);
+        assertEquals(1, summary.get(OrderStatus.ORDER).getOrderCount());
+        assertEquals(20000, summary.get(OrderStatus.ORDER).getTotalPrice());
+        assertEquals(2, summary.get(OrderStatus.ORDER).getItemCount());
+        assertEquals(1, summary.get(OrderStatus.CANCEL).getOrderCount());
+        assertEquals(30000, summary.get(OrderStatus.CANCEL).getTotalPrice());
+        assertEquals(orderedBefore + 1, orderSummaryProjection.summary().get(OrderStatus.ORDER).getOrderCount());
+    }
+}
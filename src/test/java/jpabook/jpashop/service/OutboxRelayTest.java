@@ -0,0 +1,105 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 주문 이벤트 아웃박스 -> 파일 (relay 스레드는 시작할때 한번만 돌고 쉬도록 poll-interval을 길게, 전송은 relayBatch를 직접 호출)
+ */
+@SpringBootTest(properties = {
+        "jpashop.outbox.enabled=true",
+        "jpashop.outbox.sink=file",
+        "jpashop.outbox.file=${java.io.tmpdir}/outbox-test-events.jsonl",
+        "jpashop.outbox.batch-size=2",
+        "jpashop.outbox.poll-interval=1h"
+})
+class OutboxRelayTest {
+    private static final Path EVENTS = Path.of(System.getProperty("java.io.tmpdir"), "outbox-test-events.jsonl");
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired OutboxRelay outboxRelay;
+    @Autowired OutboxRepository outboxRepository;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Files.deleteIfExists(EVENTS);
+    }
+
+    @Test
+    public void 주문과_취소_이벤트를_묶음으로_보내고_삭제() throws Exception {
+        // given
+        Long memberId = createMember("아웃박스회원A");
+        Long itemId = createBook("아웃박스 학습", 10);
+        Long orderId = orderService.order(memberId, itemId, 1);
+        orderService.cancel(orderId);
+        Long otherOrderId = orderService.order(memberId, itemId, 2);
+
+        // when
+        int published = 0;
+        for (int count; (count = outboxRelay.relayBatch()) > 0; ) {
+            published += count;
+        }
+
+        // then
+        assertEquals(3, published);
+        assertEquals(0, outboxRepository.count(), "보낸 이벤트는 아웃박스에서 삭제되어야 한다.");
+        List<String> lines = Files.readAllLines(EVENTS).stream()
+                .filter(line -> line.contains("\"orderId\":" + orderId + ",") || line.contains("\"orderId\":" + otherOrderId + ","))
+                .collect(Collectors.toList());
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(0).contains(OrderOutbox.ORDER_CREATED));
+        assertTrue(lines.get(1).contains(OrderOutbox.ORDER_CANCELED));
+    }
+
+    @Test
+    public void 주문이_롤백되면_이벤트도_남지않음() {
+        // given
+        Long memberId = createMember("아웃박스회원B");
+        Long itemId = createBook("롤백 학습", 10);
+        long before = outboxRepository.count();
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderService.order(memberId, itemId, 1);
+            status.setRollbackOnly();
+        });
+
+        // then
+        assertEquals(before, outboxRepository.count());
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.config.ReplicaLagMonitor;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.OrderFetchProfile;
+import jpabook.jpashop.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 복제본 2개를 primary와 같은 H2 DB로 연결 (replica-2는 복제 지연 1시간 -> 사용하지 않아야 함)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "jpashop.datasource.routing.enabled=true",
+        "jpashop.datasource.routing.replicas[0].name=replica-1",
+        "jpashop.datasource.routing.replicas[0].url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "jpashop.datasource.routing.replicas[0].username=sa",
+        "jpashop.datasource.routing.replicas[0].lag-query=select 0",
+        "jpashop.datasource.routing.replicas[1].name=replica-2",
+        "jpashop.datasource.routing.replicas[1].url=jdbc:h2:mem:routing;DB_CLOSE_DELAY=-1",
+        "jpashop.datasource.routing.replicas[1].username=sa",
+        "jpashop.datasource.routing.replicas[1].lag-query=select 3600"
+})
+class ReadReplicaRoutingTest {
+    @Autowired MemberService memberService;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ReplicaLagMonitor replicaLagMonitor;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    public void 읽기전용_트랜잭션은_복제본으로() throws Exception {
+        // given
+        double primary = connections("primary");
+        double replica1 = connections("replica-1");
+
+        // when
+        orderRepository.findOrderDtos();
+        orderRepository.findAll(OrderFetchProfile.SUMMARY);
+
+        Member member = new Member();
+        member.setName("복제본라우팅");
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        memberService.join(member);
+
+        // then
+        assertEquals(List.of("replica-1"), replicaLagMonitor.getAvailableReplicas(), "복제 지연이 큰 복제본은 제외되어야 한다.");
+        assertEquals(replica1 + 2, connections("replica-1"), "조회는 복제본에서 실행되어야 한다.");
+        assertEquals(0, connections("replica-2"));
+        assertEquals(primary + 1, connections("primary"), "쓰기 트랜잭션은 primary에서 실행되어야 한다.");
+    }
+
+    private double connections(String target) {
+        return meterRegistry.get("jdbc.routing.connections").tag("target", target).functionCounter().count();
+    }
+}
@@ -0,0 +1,252 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 한 상품에 동시에 주문이 몰리는 경우 (트랜잭션이 실제로 커밋되어야 하므로 @Transactional 없음)
+ */
+@SpringBootTest
+class StockServiceTest {
+    private static final int THREADS = 16;
+    private static final int ORDERS_PER_THREAD = 20;
+    private static final int STOCK = 50;
+
+    @Autowired OrderService orderService;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+    @Autowired HotItemStock hotItemStock;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 동시주문_초과판매_없음() throws Exception {
+        // given
+        Long memberId = createMember("재고동시성A");
+        Long itemId = createBook("동시성 학습", STOCK);
+
+        // when
+        int success = orderConcurrently(memberId, itemId);
+
+        // then
+        assertEquals(STOCK, success, "재고 수량만큼만 주문이 성공해야 한다.");
+        assertEquals(0, itemService.findOne(itemId).getStockQuantity(), "재고가 음수가 되면 안된다.");
+    }
+
+    @Test
+    public void 인기상품_동시주문_초과판매_없음() throws Exception {
+        // given
+        Long memberId = createMember("재고동시성B");
+        Long itemId = createBook("인기상품 학습", STOCK);
+        hotItemStock.markHot(itemId);
+
+        // when
+        int success;
+        try {
+            success = orderConcurrently(memberId, itemId);
+        } finally {
+            hotItemStock.unmarkHot(itemId);
+        }
+
+        // then
+        assertEquals(STOCK, success, "재고 수량만큼만 주문이 성공해야 한다.");
+        assertEquals(0, itemService.findOne(itemId).getStockQuantity(), "버킷에 남은 재고가 DB로 돌아와야 한다.");
+    }
+
+    @Test
+    public void 주문이_롤백되면_차감도_롤백() {
+        // given
+        Long memberId = createMember("재고롤백B");
+        Long itemId = createBook("롤백 학습", STOCK);
+
+        // when
+        orderAndRollback(memberId, itemId, 3);
+
+        // then
+        assertEquals(STOCK, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 인기상품_버킷에서_가져온_주문이_롤백되면_버킷으로() {
+        // given - 첫 주문이 refill-size만큼 가져와서 버킷을 채움
+        Long memberId = createMember("재고롤백C");
+        Long itemId = createBook("인기상품 버킷 학습", 200);
+        hotItemStock.markHot(itemId);
+
+        // when
+        try {
+            orderService.order(memberId, itemId, 1);
+            orderAndRollback(memberId, itemId, 3);
+        } finally {
+            hotItemStock.unmarkHot(itemId);
+        }
+
+        // then
+        assertEquals(199, itemService.findOne(itemId).getStockQuantity(), "버킷에서 차감한 수량은 버킷으로 돌아와야 한다.");
+    }
+
+    @Test
+    public void 인기상품_재고가_남아있으면_동시주문이_재고부족으로_실패하지_않음() throws Exception {
+        // given - 주문 수량 합계 == 재고, 버킷을 여러번 채워야 하는 수량 (마지막 주문까지 모두 성공해야 함)
+        Long memberId = createMember("재고동시성C");
+        int count = 7;
+        int stock = THREADS * ORDERS_PER_THREAD * count;
+        Long itemId = createBook("인기상품 채우기 학습", stock);
+        hotItemStock.markHot(itemId);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger notEnoughStock = new AtomicInteger();
+
+        // when
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < ORDERS_PER_THREAD; j++) {
+                        try {
+                            orderService.order(memberId, itemId, count);
+                        } catch (NotEnoughStockException e) {
+                            notEnoughStock.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+        } finally {
+            hotItemStock.unmarkHot(itemId);
+        }
+
+        // then
+        assertEquals(0, notEnoughStock.get(), "재고가 남아있는데 재고 부족으로 실패하면 안된다.");
+        assertEquals(0, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 인기상품_채우기로_가져온_주문이_롤백되면_한번만_복구() {
+        // given - 버킷이 비어있어서 DB에서 주문 수량만 가져와서 커밋 (재고 < refill-size)
+        Long memberId = createMember("재고롤백A");
+        Long itemId = createBook("인기상품 롤백 학습", STOCK);
+        hotItemStock.markHot(itemId);
+
+        // when
+        try {
+            orderAndRollback(memberId, itemId, 3);
+        } finally {
+            hotItemStock.unmarkHot(itemId);
+        }
+
+        // then
+        assertEquals(STOCK, itemService.findOne(itemId).getStockQuantity(), "버킷으로 한번만 돌려줘야 한다.");
+    }
+
+    @Test
+    public void 주문취소와_동시주문이_겹쳐도_충돌없음() throws Exception {
+        // given
+        Long memberId = createMember("재고취소A");
+        Long itemId = createBook("취소 학습", STOCK);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            orderIds.add(orderService.order(memberId, itemId, 1));
+        }
+
+        // when - 취소(재고 증가)와 주문(조건부 차감)을 동시에
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                orderService.cancel(orderId);
+                return null;
+            }));
+            futures.add(executor.submit(() -> {
+                start.await();
+                orderService.order(memberId, itemId, 1);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS); //낙관적 락 예외가 나면 실패
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(STOCK - THREADS, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    private void orderAndRollback(Long memberId, Long itemId, int count) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            orderService.order(memberId, itemId, count);
+            status.setRollbackOnly();
+        });
+    }
+
+    private int orderConcurrently(Long memberId, Long itemId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ORDERS_PER_THREAD; j++) {
+                    try {
+                        orderService.order(memberId, itemId, 1);
+                        success.incrementAndGet();
+                    } catch (NotEnoughStockException e) {
+                        // 재고 부족은 정상
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return success.get();
+    }
+
+    private Long createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강남", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(String name, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}